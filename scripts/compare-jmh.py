@@ -0,0 +1,100 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files, e.g. target/jmh-result.json from two commits.
+
+    python3 scripts/compare-jmh.py baseline.json candidate.json [--threshold 5] [--fail-on-regression]
+
+Benchmarks are matched by name and parameters. A change counts as a regression or an improvement only
+when it is larger than the threshold (percent) and than the two error margins combined, so noise within
+the confidence interval is reported as unchanged. The gc.alloc.rate.norm secondary metric (bytes per
+operation, recorded with -prof gc) is compared the same way.
+"""
+import argparse
+import json
+import sys
+
+ALLOC_METRIC = "gc.alloc.rate.norm"
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = json.load(f)
+
+    by_key = {}
+    for result in results:
+        params = result.get("params") or {}
+        key = result["benchmark"]
+        if params:
+            key += "(" + ", ".join(f"{name}={value}" for name, value in sorted(params.items())) + ")"
+        by_key[key] = result
+    return by_key
+
+
+def lower_is_better(mode):
+    # thrpt is ops per time unit; avgt, sample and ss are time per op
+    return mode != "thrpt"
+
+
+def classify(old, new, old_error, new_error, lower_better, threshold):
+    if old == 0:
+        return 0.0, "unchanged" if new == 0 else "changed"
+
+    delta = (new - old) / old * 100
+    significant = abs(new - old) > (old_error or 0) + (new_error or 0) and abs(delta) > threshold
+    if not significant:
+        return delta, "unchanged"
+    worse = new > old if lower_better else new < old
+    return delta, "REGRESSION" if worse else "improved"
+
+
+def error_of(metric):
+    error = metric.get("scoreError")
+    return error if isinstance(error, (int, float)) else 0.0
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare two JMH JSON result files")
+    parser.add_argument("baseline")
+    parser.add_argument("candidate")
+    parser.add_argument("--threshold", type=float, default=5.0, help="minimum change in percent (default 5)")
+    parser.add_argument("--fail-on-regression", action="store_true", help="exit with 1 if anything regressed")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    candidate = load(args.candidate)
+
+    rows = []
+    regressions = 0
+    for key in sorted(baseline.keys() & candidate.keys()):
+        old, new = baseline[key], candidate[key]
+        old_metric, new_metric = old["primaryMetric"], new["primaryMetric"]
+        delta, verdict = classify(old_metric["score"], new_metric["score"], error_of(old_metric),
+                                  error_of(new_metric), lower_is_better(new["mode"]), args.threshold)
+        regressions += verdict == "REGRESSION"
+        rows.append((key, old_metric["score"], new_metric["score"], new_metric["scoreUnit"], delta, verdict))
+
+        old_alloc = old.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        new_alloc = new.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        if old_alloc and new_alloc:
+            delta, verdict = classify(old_alloc["score"], new_alloc["score"], error_of(old_alloc),
+                                      error_of(new_alloc), True, args.threshold)
+            regressions += verdict == "REGRESSION"
+            rows.append(("  alloc", old_alloc["score"], new_alloc["score"], "B/op", delta, verdict))
+
+    name_width = max([len(row[0]) for row in rows] + [len("Benchmark")])
+    print(f"{'Benchmark':<{name_width}}  {'Baseline':>14}  {'Candidate':>14}  {'Unit':<8}  {'Change':>8}")
+    for name, old_score, new_score, unit, delta, verdict in rows:
+        print(f"{name:<{name_width}}  {old_score:>14.3f}  {new_score:>14.3f}  {unit:<8}  {delta:>+7.1f}%  {verdict}")
+
+    for key in sorted(baseline.keys() - candidate.keys()):
+        print(f"only in baseline:  {key}")
+    for key in sorted(candidate.keys() - baseline.keys()):
+        print(f"only in candidate: {key}")
+
+    if args.fail_on_regression and regressions:
+        print(f"{regressions} regression(s) above {args.threshold}%", file=sys.stderr)
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,131 @@
+#!/usr/bin/env python3
+"""Mixed load against a running instance: contended transfers plus card reads.
+
+    python3 scripts/load-test.py --from-card 1 --to-card 2 [--transfer-workers 100] [--read-workers 20]
+
+Transfer workers move 0.01 back and forth between the same two cards, so they queue on the cards' row locks.
+Read workers fetch one card (GET /api/cards/{id}, or --read-path) at the same time. Run it once against the
+default platform-thread mode and once with the virtual-threads profile on Java 21, and compare read latency: it
+should not grow with the number of blocked transfers while the Hikari pool still has connections.
+Transfers are rate-limited per user, so start the instance with --bankcards.rateLimit.enabled=false unless the
+429s are what you want to measure. Uses only the standard library; each worker keeps one HTTP connection open.
+"""
+import argparse
+import http.client
+import json
+import threading
+import time
+from collections import Counter
+from urllib.parse import urlsplit
+
+
+class Stats:
+    def __init__(self):
+        self.lock = threading.Lock()
+        self.latencies = []
+        self.statuses = Counter()
+
+    def record(self, status, seconds):
+        with self.lock:
+            self.statuses[status] += 1
+            if status == 200:
+                self.latencies.append(seconds)
+
+    def report(self, name, duration):
+        latencies = sorted(self.latencies)
+        total = sum(self.statuses.values())
+
+        def percentile(p):
+            if not latencies:
+                return float("nan")
+            return latencies[min(len(latencies) - 1, int(len(latencies) * p))] * 1000
+
+        statuses = ", ".join(f"{status}: {count}" for status, count in sorted(self.statuses.items(), key=str))
+        print(f"{name:<9} {total:>7} req  {len(latencies) / duration:>8.1f} ok/s  "
+              f"p50 {percentile(0.50):>7.1f} ms  p95 {percentile(0.95):>7.1f} ms  "
+              f"p99 {percentile(0.99):>7.1f} ms  max {percentile(1.0):>7.1f} ms  [{statuses}]")
+
+
+def connect(base_url):
+    url = urlsplit(base_url)
+    return http.client.HTTPConnection(url.hostname, url.port or 80, timeout=60)
+
+
+def login(base_url, username, password):
+    connection = connect(base_url)
+    connection.request("POST", "/api/auth/login", json.dumps({"username": username, "password": password}),
+                       {"Content-Type": "application/json"})
+    response = connection.getresponse()
+    body = response.read()
+    if response.status != 200:
+        raise SystemExit(f"login failed with {response.status}: {body.decode(errors='replace')}")
+    return json.loads(body)["token"]
+
+
+def worker(base_url, token, deadline, stats, next_request):
+    connection = connect(base_url)
+    headers = {"Authorization": f"Bearer {token}", "Content-Type": "application/json"}
+    sequence = 0
+    while time.monotonic() < deadline:
+        method, path, body = next_request(sequence)
+        sequence += 1
+        started = time.monotonic()
+        try:
+            connection.request(method, path, body, headers)
+            response = connection.getresponse()
+            response.read()
+            status = response.status
+        except (OSError, http.client.HTTPException) as e:
+            status = type(e).__name__
+            connection.close()
+            connection = connect(base_url)
+        stats.record(status, time.monotonic() - started)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Contended transfers plus card reads against a running instance")
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--username", default="admin1")
+    parser.add_argument("--password", default="admin1")
+    parser.add_argument("--from-card", type=int, required=True, help="active card of the user")
+    parser.add_argument("--to-card", type=int, required=True, help="another active card of the user")
+    parser.add_argument("--transfer-workers", type=int, default=100)
+    parser.add_argument("--read-workers", type=int, default=20)
+    parser.add_argument("--read-path", help="path for read workers (default: GET of --to-card)")
+    parser.add_argument("--duration", type=float, default=30, help="seconds")
+    args = parser.parse_args()
+
+    token = login(args.base_url, args.username, args.password)
+
+    def transfer(sequence):
+        # Alternate directions so the balances stay where they started
+        cards = (args.from_card, args.to_card) if sequence % 2 == 0 else (args.to_card, args.from_card)
+        body = json.dumps({"fromCardId": cards[0], "toCardId": cards[1], "amount": "0.01"})
+        return "POST", "/api/cards/transfer", body
+
+    read_path = args.read_path or f"/api/cards/{args.to_card}"
+
+    def read(sequence):
+        return "GET", read_path, None
+
+    transfers, reads = Stats(), Stats()
+    deadline = time.monotonic() + args.duration
+    threads = [threading.Thread(target=worker, args=(args.base_url, token, deadline, transfers, transfer))
+               for _ in range(args.transfer_workers)]
+    threads += [threading.Thread(target=worker, args=(args.base_url, token, deadline, reads, read))
+                for _ in range(args.read_workers)]
+
+    started = time.monotonic()
+    for thread in threads:
+        thread.start()
+    for thread in threads:
+        thread.join()
+    duration = time.monotonic() - started
+
+    print(f"{args.transfer_workers} transfer workers, {args.read_workers} read workers, {duration:.0f} s")
+    transfers.report("transfer", duration)
+    reads.report("read", duration)
+
+
+if __name__ == "__main__":
+    main()
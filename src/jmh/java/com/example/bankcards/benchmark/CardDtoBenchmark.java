@@ -0,0 +1,127 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardView;
+import com.example.bankcards.service.CardServiceImpl;
+import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.EncryptionUtil;
+import com.example.bankcards.util.enums.CardStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building {@link CardDto}s in {@link CardServiceImpl} and writing a page of them as {@code GET /api/cards}
+ * does, without a database.
+ * <p>
+ * The private mappers are called through method handles. {@code convertViewPageUnmasked} covers rows that
+ * have no stored masked number yet and have to be decrypted and masked on read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardDtoBenchmark {
+    private static final MethodHandle CONVERT_CARD;
+    private static final MethodHandle CONVERT_VIEWS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(CardServiceImpl.class, MethodHandles.lookup());
+            CONVERT_CARD = lookup.findVirtual(CardServiceImpl.class, "convertToDto",
+                    MethodType.methodType(CardDto.class, Card.class));
+            CONVERT_VIEWS = lookup.findVirtual(CardServiceImpl.class, "convertViewsToDtos",
+                    MethodType.methodType(List.class, List.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private CardServiceImpl cardService;
+    private ObjectMapper objectMapper;
+    private Card card;
+    private List<CardView> views;
+    private List<CardView> unmaskedViews;
+    private PageImpl<CardDto> page;
+
+    @Setup
+    public void setUp() throws Throwable {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", "this_is_a_32_byte_key_for_aes_256!!");
+        ReflectionTestUtils.setField(encryptionUtil, "cipherPoolSize", 64);
+        encryptionUtil.init();
+        CardMasker cardMasker = new CardMasker();
+
+        cardService = new CardServiceImpl(null, encryptionUtil, cardMasker, null, null, null, null, null);
+        // Same builder as the MVC message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDate expiryDate = LocalDate.now().plusYears(3);
+        views = new ArrayList<>(pageSize);
+        unmaskedViews = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            String number = String.format("4%015d", id);
+            String encrypted = encryptionUtil.encrypt(number);
+            // Like the repository queries, a view carries the encrypted number only when no mask is stored
+            views.add(new CardView(id, cardMasker.maskCardNumber(number), null, "Benchmark User", expiryDate,
+                    CardStatus.ACTIVE, BigDecimal.valueOf(1000, 2), 1L));
+            unmaskedViews.add(new CardView(id, null, encrypted, "Benchmark User", expiryDate,
+                    CardStatus.ACTIVE, BigDecimal.valueOf(1000, 2), 1L));
+        }
+
+        card = new Card();
+        card.setId(1L);
+        card.setCardNumber(unmaskedViews.get(0).encryptedNumber());
+        card.setMaskedNumber(views.get(0).maskedNumber());
+        card.setCardHolder("Benchmark User");
+        card.setExpiryDate(expiryDate);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalance(BigDecimal.valueOf(1000, 2));
+
+        page = new PageImpl<>(convertViews(views), PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public CardDto convertCard() throws Throwable {
+        return (CardDto) CONVERT_CARD.invokeExact(cardService, card);
+    }
+
+    @Benchmark
+    public List<CardDto> convertViewPage() throws Throwable {
+        return convertViews(views);
+    }
+
+    @Benchmark
+    public List<CardDto> convertViewPageUnmasked() throws Throwable {
+        return convertViews(unmaskedViews);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CardDto> convertViews(List<CardView> cards) throws Throwable {
+        return (List<CardDto>) CONVERT_VIEWS.invokeExact(cardService, cards);
+    }
+}
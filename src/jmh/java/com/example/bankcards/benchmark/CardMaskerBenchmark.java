@@ -0,0 +1,66 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardMasker;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pass {@link CardMasker} against the previous regex-based implementation for 16 and 19 digit PANs.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMaskerBenchmark {
+
+    @Param({"4111111111111111", "4111 1111 1111 1111", "6011000990139424123"})
+    private String cardNumber;
+
+    private CardMasker cardMasker;
+    private JsonGenerator generator;
+
+    @Setup
+    public void setUp() throws IOException {
+        cardMasker = new CardMasker();
+        generator = new JsonFactory().createGenerator(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    @Benchmark
+    public String mask() {
+        return cardMasker.maskCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public String maskLegacy() {
+        String digitsOnly = cardNumber.replaceAll("[^0-9]", "");
+        String masked = digitsOnly.replaceAll(".(?=.{4})", "*");
+
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < masked.length(); i++) {
+            if (i > 0 && i % 4 == 0) {
+                formatted.append(" ");
+            }
+            formatted.append(masked.charAt(i));
+        }
+        return formatted.toString();
+    }
+
+    @Benchmark
+    public void writeMasked() throws IOException {
+        cardMasker.writeMasked(cardNumber, generator);
+        generator.flush();
+    }
+}
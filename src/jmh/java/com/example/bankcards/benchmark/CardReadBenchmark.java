@@ -0,0 +1,102 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankCardsApplication;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of {@code GET /api/cards} read through {@link CardService#getUserCardsWithFilter}, which selects
+ * {@code CardView} rows, against the previous path that loaded managed {@link Card} entities.
+ * Run with {@code -prof gc} (the default {@code jmh.profiler}) to compare allocation per page.
+ * <p>
+ * Needs a migrated database with cards for {@code userId}, given the same way as to the application:
+ * {@code SPRING_DATASOURCE_URL}, {@code DB_USER}, {@code DB_PASSWORD} and {@code ENCRYPTION_KEY}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardReadBenchmark {
+
+    @Param({"1"})
+    private long userId;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private CardRepository cardRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private User user;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankCardsApplication.class)
+                .properties("server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "spring.liquibase.enabled=false",
+                        "logging.level.root=WARN",
+                        "JWT_SECRET=benchmark_secret_key_with_at_least_32_characters",
+                        "JWT_EXPIRATION_MS=60000")
+                .run();
+        cardService = context.getBean(CardService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        user = new User();
+        user.setId(userId);
+        pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<CardDto> projection() {
+        return cardService.getUserCardsWithFilter(user, null, null, pageable);
+    }
+
+    @Benchmark
+    public Page<CardDto> entities() {
+        return readOnlyTransaction.execute(status -> {
+            Page<Card> cards = cardRepository.findAll(CardSpecifications.ownedBy(user), pageable);
+            List<CardDto> dtos = new ArrayList<>(cards.getNumberOfElements());
+            for (Card card : cards) {
+                CardDto dto = new CardDto();
+                dto.setId(card.getId());
+                dto.setMaskedCardNumber(card.getMaskedNumber());
+                dto.setCardHolder(card.getCardHolder());
+                dto.setExpiryDate(card.getExpiryDate());
+                dto.setStatus(card.getStatus());
+                dto.setBalance(card.getBalance());
+                dtos.add(dto);
+            }
+            return new PageImpl<>(dtos, cards.getPageable(), cards.getTotalElements());
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EncryptionUtil} with the previous implementation, which built the key
+ * and looked up the cipher provider on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionBenchmark {
+    private static final String KEY = "this_is_a_32_byte_key_for_aes_256!!";
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private EncryptionUtil encryptionUtil;
+    private List<String> page;
+
+    @Setup
+    public void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", KEY);
+        ReflectionTestUtils.setField(encryptionUtil, "cipherPoolSize", 64);
+        encryptionUtil.init();
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(encryptionUtil.encrypt(String.format("4%015d", i)));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String encrypt() {
+        return encryptionUtil.encrypt("4111111111111111");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String encryptLegacy() throws Exception {
+        return LegacyEncryption.encrypt("4111111111111111");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void decryptPage(Blackhole blackhole) {
+        for (String value : page) {
+            blackhole.consume(encryptionUtil.decrypt(value));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<String> decryptPageBatch() {
+        return encryptionUtil.decryptAll(page);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void decryptPageLegacy(Blackhole blackhole) throws Exception {
+        for (String value : page) {
+            blackhole.consume(LegacyEncryption.decrypt(value));
+        }
+    }
+
+    /**
+     * Copy of the original per-call implementation, kept as the baseline.
+     */
+    static final class LegacyEncryption {
+        private static SecretKeySpec getValidKey() {
+            byte[] keyBytes = KEY.getBytes(StandardCharsets.UTF_8);
+            return new SecretKeySpec(Arrays.copyOf(keyBytes, 32), "AES");
+        }
+
+        static String encrypt(String data) throws Exception {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, getValidKey(), new IvParameterSpec(new byte[16]));
+            return Base64.getEncoder().encodeToString(cipher.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        static String decrypt(String encryptedData) throws Exception {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, getValidKey(), new IvParameterSpec(new byte[16]));
+            return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedData)), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.JwtUtils;
+import com.example.bankcards.service.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and validation as done on login and by {@code JwtAuthenticationFilter} on every request.
+ * {@code validateCached} is the steady state of a client reusing its token; {@code validateUncached} runs with
+ * a token cache that keeps nothing, so every call parses the token and checks its signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private static final String SECRET = "benchmark_secret_key_with_at_least_32_characters";
+
+    @Param({"false", "true"})
+    private boolean embedPrincipal;
+
+    private JwtUtils jwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = createJwtUtils();
+        uncachedJwtUtils = createJwtUtils();
+        // Evicts on the calling thread right after each put, instead of later on the common pool
+        ReflectionTestUtils.setField(uncachedJwtUtils, "verifiedTokens", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(0)
+                .build());
+
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user", "Benchmark User", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean validateCached() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean validateUncached() {
+        return uncachedJwtUtils.validateJwtToken(token);
+    }
+
+    private JwtUtils createJwtUtils() {
+        JwtUtils utils = new JwtUtils(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(utils, "jwtCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(utils, "jwtEmbedPrincipal", embedPrincipal);
+        utils.init();
+        return utils;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.RateLimitFilter;
+import com.example.bankcards.security.RateLimitProperties;
+import com.example.bankcards.security.RateLimiter;
+import com.example.bankcards.service.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of the rate limit on an allowed request, with 4 threads. {@code sameKey} has every thread take tokens
+ * from one bucket, the worst case for the compare-and-set loop; {@code filter} runs {@link RateLimitFilter}
+ * for a transfer with per-user, per-IP and global limits, against {@code chainOnly} without it.
+ * Limits are set high enough that nothing is rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+    private static final FilterChain CHAIN = (request, response) -> { };
+    private static final RateLimiter.Limit UNREACHABLE = RateLimiter.Limit.of(1e9, 1_000_000);
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private RateLimiter rateLimiter;
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter(100_000, Duration.ofMinutes(10), System::nanoTime);
+
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRatePerSecond(1e9);
+        limit.setBurst(1_000_000);
+        RateLimitProperties.Rule transfer = new RateLimitProperties.Rule();
+        transfer.setName("transfer");
+        transfer.setMethod("POST");
+        transfer.setPath("/api/cards/transfer");
+        transfer.setPerUser(limit);
+        transfer.setPerIp(limit);
+        transfer.setGlobal(limit);
+        RateLimitProperties.Rule login = new RateLimitProperties.Rule();
+        login.setName("login");
+        login.setMethod("POST");
+        login.setPath("/api/auth/login");
+        login.setPerIp(limit);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(login, transfer));
+        filter = new RateLimitFilter(properties, new ObjectMapper(),
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        String key;
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp(RateLimitBenchmark benchmark) {
+            int id = benchmark.threadIds.incrementAndGet();
+            key = "transfer:user:" + id;
+
+            request = new MockHttpServletRequest("POST", "/api/cards/transfer");
+            request.setServletPath("/api/cards/transfer");
+            request.setRemoteAddr("10.0.0." + id);
+            response = new MockHttpServletResponse();
+
+            // JMH runs thread-scoped setup on the benchmark thread, so the context is seen by the filter
+            UserDetailsImpl user = new UserDetailsImpl((long) id, "user" + id, "Benchmark User", null, List.of());
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+    }
+
+    @Benchmark
+    public long sameKey() {
+        return rateLimiter.tryAcquire("transfer:global", UNREACHABLE);
+    }
+
+    @Benchmark
+    public long keyPerThread(Client client) {
+        return rateLimiter.tryAcquire(client.key, UNREACHABLE);
+    }
+
+    @Benchmark
+    public void filter(Client client) throws Exception {
+        filter.doFilter(client.request, client.response, CHAIN);
+    }
+
+    @Benchmark
+    public void chainOnly(Client client) throws Exception {
+        CHAIN.doFilter(client.request, client.response);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.service.CardLockManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection pool starvation by transfers on one hot card, with and without {@link CardLockManager}.
+ * <p>
+ * The pool is a fair semaphore of {@code poolSize} connections and the card's row lock a lock held for
+ * {@code TRANSACTION_NANOS}, both parked rather than spun so the numbers mean something on a small machine.
+ * 16 threads transfer on the same card while 2 threads run short reads that need a connection but no card.
+ * Without card locks every pooled connection ends up held by a transfer waiting for the row lock and reads
+ * queue behind them; with card locks only the transfer that owns the card holds a connection, so {@code read}
+ * should stay close to {@code READ_NANOS}. {@code transfer} is bounded by the row lock either way.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferContentionBenchmark {
+    private static final long TRANSACTION_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long READ_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long HOT_CARD = 1;
+    private static final long OTHER_CARD = 2;
+
+    @Param({"false", "true"})
+    private boolean cardLocks;
+
+    @Param("4")
+    private int poolSize;
+
+    private Semaphore pool;
+    private ReentrantLock rowLock;
+    private CardLockManager cardLockManager;
+
+    @Setup
+    public void setUp() {
+        pool = new Semaphore(poolSize, true);
+        rowLock = new ReentrantLock();
+        cardLockManager = new CardLockManager(1024);
+    }
+
+    @Benchmark
+    @Group("hotCard")
+    @GroupThreads(16)
+    public void transfer() throws InterruptedException {
+        if (!cardLocks) {
+            transaction();
+            return;
+        }
+        try (CardLockManager.CardLocks locks = cardLockManager.tryLock(HOT_CARD, OTHER_CARD, 1, TimeUnit.MINUTES)) {
+            transaction();
+        }
+    }
+
+    @Benchmark
+    @Group("hotCard")
+    @GroupThreads(2)
+    public void read() throws InterruptedException {
+        pool.acquire();
+        try {
+            LockSupport.parkNanos(READ_NANOS);
+        } finally {
+            pool.release();
+        }
+    }
+
+    private void transaction() throws InterruptedException {
+        pool.acquire();
+        try {
+            rowLock.lock();
+            try {
+                LockSupport.parkNanos(TRANSACTION_NANOS);
+            } finally {
+                rowLock.unlock();
+            }
+        } finally {
+            pool.release();
+        }
+    }
+}
@@ -3,10 +3,14 @@ package com.example.bankcards;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 @SpringBootApplication
 @EnableWebMvc
+@EnableRetry
+@EnableScheduling
 public class BankCardsApplication {
     public static void main(String[] args) {
         Dotenv dotenv = Dotenv.configure()
@@ -0,0 +1,57 @@
+package com.example.bankcards.config;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Warns on startup about foreign keys whose columns are not the leading columns of a valid index.
+ * Postgres does not index foreign keys by itself, so lookups by owner and cascading deletes on such
+ * columns scan the whole table.
+ */
+@Component
+@RequiredArgsConstructor
+public class ForeignKeyIndexCheck {
+    private static final Logger logger = LoggerFactory.getLogger(ForeignKeyIndexCheck.class);
+
+    private static final String UNINDEXED_FOREIGN_KEYS_SQL = """
+            SELECT c.conrelid::regclass || '.' || c.conname || ' (' ||
+                   string_agg(a.attname, ', ' ORDER BY k.n) || ')'
+            FROM pg_constraint c
+            CROSS JOIN LATERAL unnest(c.conkey) WITH ORDINALITY AS k(attnum, n)
+            JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum
+            WHERE c.contype = 'f'
+              AND c.connamespace = current_schema()::regnamespace
+              AND NOT EXISTS (
+                  SELECT 1 FROM pg_index i
+                  WHERE i.indrelid = c.conrelid
+                    AND i.indisvalid
+                    AND (i.indkey::int2[])[0:cardinality(c.conkey) - 1] @> c.conkey)
+            GROUP BY c.conrelid, c.conname
+            ORDER BY 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        try {
+            for (String foreignKey : findUnindexedForeignKeys()) {
+                logger.warn("Foreign key {} has no index on its columns", foreignKey);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not check foreign key indexes: {}", e.getMessage());
+        }
+    }
+
+    public List<String> findUnindexedForeignKeys() {
+        return jdbcTemplate.queryForList(UNINDEXED_FOREIGN_KEYS_SQL, String.class);
+    }
+}
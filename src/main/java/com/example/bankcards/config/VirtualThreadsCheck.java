@@ -0,0 +1,34 @@
+package com.example.bankcards.config;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warns on startup when the {@code virtual-threads} profile is active but the runtime is older than Java 21,
+ * in which case Spring Boot silently keeps the platform thread pools.
+ */
+@Component
+@Profile("virtual-threads")
+@RequiredArgsConstructor
+public class VirtualThreadsCheck {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsCheck.class);
+
+    private final Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkVirtualThreads() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            logger.info("Serving requests on virtual threads");
+        } else {
+            logger.warn("Profile virtual-threads is active, but Java {} has no virtual threads; " +
+                    "requests are served on platform threads. Run on Java 21 or later", Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.service.CardExportLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Streamed exports run as async requests. {@code spring.mvc.async.request-timeout} is not applied
+     * because the application uses {@code @EnableWebMvc}, so the timeout is set here.
+     */
+    @Value("${bankcards.app.asyncRequestTimeoutMs:600000}")
+    private long asyncRequestTimeoutMs;
+
+    private final Environment environment;
+    private final CardExportLimiter cardExportLimiter;
+    private ThreadPoolTaskExecutor exportExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+        configurer.setTaskExecutor(asyncExecutor());
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled} on Java 21, exports are written on virtual threads,
+     * since they spend most of their time waiting on the database cursor and the client socket.
+     * Otherwise they get a pool sized to {@code exportMaxConcurrent} instead of MVC's default executor,
+     * which starts a new thread for every request.
+     */
+    private AsyncTaskExecutor asyncExecutor() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        int threads = cardExportLimiter.getMaxConcurrent();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Exports over the cap are refused before they are submitted; the queue only covers a thread
+        // that has released its permit but not yet returned to the pool
+        executor.setQueueCapacity(threads);
+        executor.initialize();
+        exportExecutor = executor;
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdown();
+        }
+    }
+}
@@ -2,58 +2,57 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.request.LoginRequest;
 import com.example.bankcards.dto.response.JwtResponse;
-import com.example.bankcards.security.JwtUtils;
-import com.example.bankcards.security.UserDetailsServiceImpl;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.security.LoginService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
-    private final AuthenticationManager authenticationManager;
-    private final JwtUtils jwtUtils;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final LoginService loginService;
 
+    /**
+     * The password is checked on the login pool; the request thread is released until the token is ready.
+     * Responds with 429 when too many logins are already queued and with 503 while the application shuts down.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest request) {
-        try {
-            userDetailsService.loadUserByUsername(request.getUsername());
-
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()
-                    )
-            );
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtils.generateJwtToken(authentication);
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest request) {
+        return loginService.login(request.getUsername(), request.getPassword())
+                .<ResponseEntity<?>>thenApply(jwt -> ResponseEntity.ok(new JwtResponse(jwt)))
+                .exceptionally(AuthController::loginFailed);
+    }
 
-            return ResponseEntity.ok(new JwtResponse(jwt));
+    private static ResponseEntity<?> loginFailed(Throwable failure) {
+        Throwable e = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
 
-        } catch (BadCredentialsException e) {
+        if (e instanceof ServiceUnavailableException unavailable) {
+            throw unavailable;
+        }
+        if (e instanceof BadCredentialsException) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Неверные учетные данные");
-        } catch (UsernameNotFoundException e) {
+        }
+        if (e instanceof UsernameNotFoundException) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Пользователь не найден");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Ошибка сервера: " + e.getMessage());
         }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Ошибка сервера: " + e.getMessage());
     }
-}
\ No newline at end of file
+}
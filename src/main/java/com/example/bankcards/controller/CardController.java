@@ -1,14 +1,23 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.request.CardIssueRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.CardIssueResult;
+import com.example.bankcards.dto.response.CursorPage;
+import com.example.bankcards.dto.response.TransferResult;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardBlockedException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.UnauthorizedCardAccessException;
+import com.example.bankcards.service.CardExportLimiter;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransferCoordinator;
 import com.example.bankcards.service.UserDetailsImpl;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
@@ -18,11 +27,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -31,7 +43,14 @@ import java.util.List;
 @SecurityRequirement(name = "Bearer Authentication")
 public class CardController {
     private final CardService cardService;
+    private final CardIssuanceService cardIssuanceService;
+    private final TransferCoordinator transferCoordinator;
+    private final CardExportLimiter cardExportLimiter;
     private static final Logger log = LoggerFactory.getLogger(CardController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String TEXT_CSV = "text/csv";
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -52,6 +71,35 @@ public class CardController {
         return ResponseEntity.ok(createdCard);
     }
 
+    /**
+     * Issues a JSON array of cards; every element gets a result with the same index.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CardIssueResult>> issueCards(@RequestBody List<CardIssueRequest> cards,
+                                                            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        return ResponseEntity.ok(cardIssuanceService.issueCards(cards, user));
+    }
+
+    /**
+     * Same as the JSON variant for a CSV body whose header names the columns
+     * {@code cardNumber,cardHolder,expiryDate,balance}; results are indexed by data line.
+     */
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CardIssueResult>> issueCardsFromCsv(InputStream csv,
+                                                                   Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        return ResponseEntity.ok(cardIssuanceService.issueCardsFromCsv(csv, user));
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<Page<CardDto>> getUserCards(
@@ -67,6 +115,21 @@ public class CardController {
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<CardDto>> getUserCardsAfter(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        CursorPage<CardDto> cards = cardService.getUserCardsAfter(user, sort, after, size);
+        return ResponseEntity.ok(cards);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<CardDto> getCardById(@PathVariable Long id,
@@ -80,6 +143,22 @@ public class CardController {
         return ResponseEntity.ok(card);
     }
 
+    @GetMapping("/{id}/transactions")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<TransactionDto>> getCardTransactions(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication)
+            throws CardNotFoundException, UnauthorizedCardAccessException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        CursorPage<TransactionDto> transactions = cardService.getCardTransactions(id, user, after, size);
+        return ResponseEntity.ok(transactions);
+    }
+
     @GetMapping("/all")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<CardDto>> getAllUserCards(Authentication authentication) {
@@ -91,6 +170,31 @@ public class CardController {
         return ResponseEntity.ok(cards);
     }
 
+    /**
+     * Streams all cards of the user as a JSON array, or as newline-delimited JSON with {@code format=ndjson}.
+     * Responds with 429 when {@code exportMaxConcurrent} exports are already running.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUserCards(
+            @RequestParam(defaultValue = "json") String format,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        CardExportLimiter.Permit permit = cardExportLimiter.acquire();
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                cardService.exportUserCards(user, ndjson, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<CardDto> updateCard(@PathVariable Long id,
@@ -152,6 +256,7 @@ public class CardController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<Void> transferBetweenCards(
             @Valid @RequestBody TransferRequest transferRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication)
             throws CardNotFoundException, UnauthorizedCardAccessException,
             InsufficientFundsException, CardBlockedException {
@@ -159,7 +264,27 @@ public class CardController {
         User user = new User();
         user.setId(userDetails.getId());
 
-        cardService.transferBetweenCards(transferRequest, user);
-        return ResponseEntity.ok().build();
+        if (idempotencyKey == null) {
+            transferCoordinator.transfer(transferRequest, user);
+            return ResponseEntity.ok().build();
+        }
+
+        boolean replayed = transferCoordinator.transfer(transferRequest, user, idempotencyKey);
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(replayed))
+                .build();
+    }
+
+    @PostMapping("/transfers/batch")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<TransferResult>> transferBatch(
+            @Valid @RequestBody BatchTransferRequest batchRequest,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+
+        List<TransferResult> results = cardService.transferBatch(batchRequest.getTransfers(), user);
+        return ResponseEntity.ok(results);
     }
 }
\ No newline at end of file
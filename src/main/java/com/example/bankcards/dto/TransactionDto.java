@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.util.enums.TransactionType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class TransactionDto {
+    private Long id;
+    private Long cardId;
+    private Long counterpartyCardId;
+    private TransactionType type;
+    private BigDecimal amount;
+    private LocalDateTime createdAt;
+}
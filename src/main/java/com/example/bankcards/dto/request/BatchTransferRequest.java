@@ -0,0 +1,16 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty
+    @Size(max = 1000, message = "A batch can contain at most 1000 transfers")
+    @Valid
+    private List<TransferRequest> transfers;
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of a bulk issuance upload, either a JSON array element or a CSV line with the same column names.
+ */
+@Data
+public class CardIssueRequest {
+    @NotBlank
+    @Pattern(regexp = "\\d{13,19}", message = "must be 13 to 19 digits")
+    private String cardNumber;
+
+    @NotBlank
+    @Size(max = 100)
+    private String cardHolder;
+
+    @NotNull
+    @Future
+    private LocalDate expiryDate;
+
+    @PositiveOrZero
+    private BigDecimal balance;
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.util.enums.CardIssueStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CardIssueResult {
+    private int index;
+    private Long id;
+    private String maskedCardNumber;
+    private CardIssueStatus status;
+    private String message;
+}
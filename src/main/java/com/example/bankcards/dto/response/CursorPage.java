@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is passed back as {@code after}
+ * to get the next page and is {@code null} on the last one.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private boolean hasNext;
+    private String nextCursor;
+}
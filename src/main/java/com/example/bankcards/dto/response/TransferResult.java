@@ -0,0 +1,14 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.util.enums.TransferStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TransferResult {
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private TransferStatus status;
+}
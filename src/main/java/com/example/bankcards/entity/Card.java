@@ -13,13 +13,23 @@ import java.time.LocalDate;
 @Data
 @NoArgsConstructor
 public class Card {
+    /** Increment of {@code cards_seq}; every {@code nextval} reserves the block of ids ending at its value. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
     private String cardNumber;
 
+    @Column(length = 32)
+    private String maskedNumber;
+
+    @Column(length = 4)
+    private String last4;
+
     @Column(nullable = false)
     private String cardHolder;
 
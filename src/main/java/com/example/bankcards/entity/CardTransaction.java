@@ -0,0 +1,51 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only ledger row, one per side of a transfer. Card ids are plain columns rather than associations,
+ * so the history outlives deleted cards and writing it never loads a card.
+ */
+@Entity
+@Immutable
+@Table(name = "transactions")
+@Data
+@NoArgsConstructor
+public class CardTransaction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long cardId;
+
+    @Column(nullable = false)
+    private Long counterpartyCardId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public CardTransaction(Long cardId, Long counterpartyCardId, TransactionType type,
+                           BigDecimal amount, LocalDateTime createdAt) {
+        this.cardId = cardId;
+        this.counterpartyCardId = counterpartyCardId;
+        this.type = type;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.security.PrincipalCacheInvalidationListener;
 import com.example.bankcards.util.enums.ERole;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidationListener.class)
 @Table(name = "roles")
 @Data
 @NoArgsConstructor
@@ -1,9 +1,13 @@
 package com.example.bankcards.exception;
 
 import com.example.bankcards.dto.response.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -15,29 +19,67 @@ import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
 
     @ExceptionHandler(CardNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCardNotFound(CardNotFoundException e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(new ErrorResponse("CARD_NOT_FOUND", e.getMessage()));
+        return error(HttpStatus.NOT_FOUND, "CARD_NOT_FOUND", e.getMessage(), e);
     }
 
     @ExceptionHandler(UnauthorizedCardAccessException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedAccess(UnauthorizedCardAccessException e) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                .body(new ErrorResponse("UNAUTHORIZED_ACCESS", e.getMessage()));
+        return error(HttpStatus.FORBIDDEN, "UNAUTHORIZED_ACCESS", e.getMessage(), e);
     }
 
     @ExceptionHandler(CardBlockedException.class)
     public ResponseEntity<ErrorResponse> handleCardBlocked(CardBlockedException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new ErrorResponse("CARD_BLOCKED", e.getMessage()));
+        return error(HttpStatus.BAD_REQUEST, "CARD_BLOCKED", e.getMessage(), e);
     }
 
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientFunds(InsufficientFundsException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new ErrorResponse("INSUFFICIENT_FUNDS", e.getMessage()));
+        return error(HttpStatus.BAD_REQUEST, "INSUFFICIENT_FUNDS", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(InvalidCardNumberException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCardNumber(InvalidCardNumberException e) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_CARD_NUMBER", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException e) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_CURSOR", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(InvalidBulkIssueException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidBulkIssue(InvalidBulkIssueException e) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_BULK_ISSUE", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException e) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException e) {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        return error(HttpStatus.TOO_MANY_REQUESTS, headers, "TOO_MANY_REQUESTS", e.getMessage(), e);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException e) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE", e.getMessage(), e);
     }
 
     @ExceptionHandler({
@@ -45,9 +87,7 @@ public class GlobalExceptionHandler {
             PessimisticLockingFailureException.class
     })
     public ResponseEntity<ErrorResponse> handleConcurrencyExceptions(Exception ex) {
-        return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body(new ErrorResponse("CONCURRENCY_CONFLICT",
-                        "The resource was modified by another transaction. Please retry the operation"));
+        return error(HttpStatus.CONFLICT, "CONCURRENCY_CONFLICT", "The resource was modified by another transaction. Please retry the operation", ex);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -56,8 +96,7 @@ public class GlobalExceptionHandler {
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .collect(Collectors.joining("; "));
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new ErrorResponse("VALIDATION_ERROR", errorMessage));
+        return error(HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", errorMessage, ex);
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
@@ -66,21 +105,30 @@ public class GlobalExceptionHandler {
                 .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
                 .collect(Collectors.joining("; "));
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new ErrorResponse("VALIDATION_ERROR", errorMessage));
+        return error(HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", errorMessage, ex);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                .body(new ErrorResponse("ACCESS_DENIED",
-                        "You don't have permission to access this resource"));
+        return error(HttpStatus.FORBIDDEN, "ACCESS_DENIED", "You don't have permission to access this resource", ex);
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleAllExceptions(Exception ex) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorResponse("INTERNAL_ERROR",
-                        "An unexpected error occurred. Please contact support"));
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR", "An unexpected error occurred. Please contact support", ex);
+    }
+
+    /**
+     * Counts every handled exception as {@code bankcards.errors}, tagged with its type and error code.
+     */
+    private ResponseEntity<ErrorResponse> error(HttpStatus status, String code, String message, Exception e) {
+        return error(status, HttpHeaders.EMPTY, code, message, e);
+    }
+
+    private ResponseEntity<ErrorResponse> error(HttpStatus status, HttpHeaders headers, String code, String message,
+                                                Exception e) {
+        meterRegistry.counter("bankcards.errors", "exception", e.getClass().getSimpleName(), "code", code)
+                .increment();
+        return ResponseEntity.status(status).headers(headers).body(new ErrorResponse(code, message));
     }
-}
\ No newline at end of file
+}
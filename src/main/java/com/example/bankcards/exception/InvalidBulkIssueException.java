@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InvalidBulkIssueException extends RuntimeException{
+    public InvalidBulkIssueException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InvalidCardNumberException extends RuntimeException{
+    public InvalidCardNumberException(String message){
+        super(message);
+    }
+}
@@ -2,31 +2,114 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
-import com.example.bankcards.util.enums.CardStatus;
 import jakarta.persistence.LockModeType;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
-    List<Card> findByUser(User user);
+public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card>,
+        CardViewRepository {
+    String CARD_VIEW = "new com.example.bankcards.repository.CardView(c.id, c.maskedNumber, " +
+            "CASE WHEN c.maskedNumber IS NULL THEN c.cardNumber END, " +
+            "c.cardHolder, c.expiryDate, c.status, c.balance, c.user.id)";
+
+    @Query("SELECT " + CARD_VIEW + " FROM Card c WHERE c.id = :id")
+    Optional<CardView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT " + CARD_VIEW + " FROM Card c WHERE c.user = :user")
+    List<CardView> findViewsByUser(@Param("user") User user);
+
+    /**
+     * All cards of the user in id order, read through a server-side cursor {@code fetchSize} rows at a time.
+     * The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Card c WHERE c.user = :user ORDER BY c.id")
+    Stream<Card> streamByUser(@Param("user") User user);
+
+    /**
+     * First page of a keyset scroll; the sort comes from {@code pageable}. Returned as a {@link Slice},
+     * so no count query is run.
+     */
+    Slice<Card> findByUser(User user, Pageable pageable);
+
+    @Query("SELECT c FROM Card c WHERE c.user = :user AND c.id > :afterId ORDER BY c.id")
+    Slice<Card> findByUserAfterId(@Param("user") User user,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    /**
+     * The row comparison is rendered as {@code (expiry_date, id) > (?, ?)}, which Postgres answers
+     * with a range scan on {@code (user_id, expiry_date, id)}.
+     */
+    @Query("SELECT c FROM Card c WHERE c.user = :user AND (c.expiryDate, c.id) > (:afterExpiryDate, :afterId) " +
+            "ORDER BY c.expiryDate, c.id")
+    Slice<Card> findByUserAfterExpiryDate(@Param("user") User user,
+                                          @Param("afterExpiryDate") LocalDate afterExpiryDate,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * The subset of the given encrypted numbers that already belongs to a card. Encryption is deterministic,
+     * so this answers from the unique index on {@code card_number}.
+     */
+    @Query("SELECT c.cardNumber FROM Card c WHERE c.cardNumber IN :cardNumbers")
+    List<String> findExistingCardNumbers(@Param("cardNumbers") Collection<String> cardNumbers);
+
+    @Query("SELECT c.id FROM Card c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Card c WHERE c.id IN :ids AND c.user = :user")
+    List<Long> findOwnedIds(@Param("ids") Collection<Long> ids, @Param("user") User user);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Card> findByIdAndUser(Long id, User user);
 
-    @Query("SELECT c FROM Card c WHERE c.user = :user AND " +
-            "(LOWER(c.cardHolder) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "c.status = :status)")
-    Page<Card> findByUserAndSearch(@Param("user") User user,
-                                   @Param("search") String search,
-                                   @Param("status") CardStatus status,
-                                   Pageable pageable);
+    /**
+     * Loads and locks the user's cards among {@code ids}. Rows are locked in ascending id order,
+     * the same order single transfers use.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids AND c.user = :user ORDER BY c.id")
+    List<Card> findAllForTransfer(@Param("ids") Collection<Long> ids, @Param("user") User user);
+
+    /**
+     * Debits an active card of the user only if it holds at least {@code amount}.
+     * Returns the number of updated rows, so 0 means missing, not owned, blocked or insufficient funds.
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "WHERE c.id = :id AND c.user.id = :userId AND c.balance >= :amount " +
+            "AND c.status = com.example.bankcards.util.enums.CardStatus.ACTIVE")
+    int debitIfSufficient(@Param("id") Long id,
+                          @Param("userId") Long userId,
+                          @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, c.version = c.version + 1 " +
+            "WHERE c.id = :id AND c.user.id = :userId " +
+            "AND c.status = com.example.bankcards.util.enums.CardStatus.ACTIVE")
+    int creditIfActive(@Param("id") Long id,
+                       @Param("userId") Long userId,
+                       @Param("amount") BigDecimal amount);
 }
\ No newline at end of file
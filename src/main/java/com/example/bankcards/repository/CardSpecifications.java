@@ -0,0 +1,59 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.enums.CardStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+/**
+ * Filters for {@link CardRepository#findViews(Specification, org.springframework.data.domain.Pageable)}.
+ * Factories return {@code null} for an empty filter, and {@link Specification#and} skips {@code null},
+ * so unused filters do not appear in the SQL at all.
+ */
+public final class CardSpecifications {
+    private static final char ESCAPE = '\\';
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> ownedBy(User user) {
+        return (root, query, cb) -> cb.equal(root.get("user"), user);
+    }
+
+    /**
+     * Case-insensitive substring match rendered as {@code lower(card_holder) like '%...%'}, which the
+     * {@code pg_trgm} GIN index on {@code lower(card_holder)} can answer. LIKE wildcards in the input are
+     * matched literally. The input is lowercased with {@link Locale#ROOT}, so the pattern matches Postgres
+     * {@code lower()} whatever the JVM's default locale.
+     */
+    public static Specification<Card> cardHolderContains(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+
+        String pattern = "%" + escapeLike(search.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("cardHolder")), pattern, ESCAPE);
+    }
+
+    public static Specification<Card> hasStatus(CardStatus status) {
+        if (status == null) {
+            return null;
+        }
+
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CardTransactionRepository extends JpaRepository<CardTransaction, Long> {
+    /**
+     * First newest-first page of a card's transactions, served from the {@code (card_id, created_at, id)} index
+     * without an offset or a count query.
+     */
+    List<CardTransaction> findByCardIdOrderByCreatedAtDescIdDesc(Long cardId, Pageable pageable);
+
+    /**
+     * Next newest-first page after the entry at {@code (beforeCreatedAt, beforeId)}. Ids come from pooled
+     * sequence blocks and are not in commit order, so they only break ties between equal timestamps.
+     */
+    @Query("SELECT t FROM CardTransaction t WHERE t.cardId = :cardId " +
+            "AND (t.createdAt, t.id) < (:beforeCreatedAt, :beforeId) ORDER BY t.createdAt DESC, t.id DESC")
+    List<CardTransaction> findByCardIdBefore(@Param("cardId") Long cardId,
+                                             @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                             @Param("beforeId") Long beforeId,
+                                             Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.util.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only row of {@code cards} with only the columns a {@code CardDto} needs. Built by a constructor
+ * expression, so Hibernate neither manages nor snapshots it.
+ * <p>
+ * {@code encryptedNumber} is only selected for rows without a {@code maskedNumber} yet.
+ */
+public record CardView(Long id,
+                       String maskedNumber,
+                       String encryptedNumber,
+                       String cardHolder,
+                       LocalDate expiryDate,
+                       CardStatus status,
+                       BigDecimal balance,
+                       Long userId) {
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * {@link CardRepository} fragment for {@link CardView} queries that take a {@link Specification}.
+ * The fluent {@code findBy(spec, q -> q.as(...))} still loads entities, so these queries are built by hand.
+ */
+public interface CardViewRepository {
+    Page<CardView> findViews(Specification<Card> spec, Pageable pageable);
+}
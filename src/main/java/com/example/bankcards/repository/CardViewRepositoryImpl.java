@@ -0,0 +1,73 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class CardViewRepositoryImpl implements CardViewRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Like {@code findAll(spec, pageable)}, but selects {@link CardView} rows. The count query is skipped
+     * when the page itself shows the total, as Spring Data does for entities.
+     */
+    @Override
+    public Page<CardView> findViews(Specification<Card> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<CardView> query = cb.createQuery(CardView.class);
+        Root<Card> card = query.from(Card.class);
+        query.select(cb.construct(CardView.class,
+                card.get("id"),
+                card.get("maskedNumber"),
+                cb.<String>selectCase()
+                        .when(cb.isNull(card.get("maskedNumber")), card.<String>get("cardNumber"))
+                        .otherwise(cb.nullLiteral(String.class)),
+                card.get("cardHolder"),
+                card.get("expiryDate"),
+                card.get("status"),
+                card.get("balance"),
+                card.get("user").get("id")));
+        Predicate predicate = spec.toPredicate(card, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), card, cb));
+        }
+
+        TypedQuery<CardView> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<CardView> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<Card> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> card = query.from(Card.class);
+        query.select(cb.count(card));
+        Predicate predicate = spec.toPredicate(card, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
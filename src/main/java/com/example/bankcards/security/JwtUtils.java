@@ -1,22 +1,41 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.service.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String FULL_NAME_CLAIM = "name";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String VALIDATIONS_METRIC = "bankcards.jwt.validations";
 
     @Value("${bankcards.app.jwtSecret}")
     private String jwtSecret;
@@ -24,43 +43,159 @@ public class JwtUtils {
     @Value("${bankcards.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${bankcards.app.jwtCacheMaxSize:10000}")
+    private long jwtCacheMaxSize;
+
+    @Value("${bankcards.app.jwtEmbedPrincipal:false}")
+    private boolean jwtEmbedPrincipal;
+
     private SecretKey secretKey;
+    private JwtParser jwtParser;
+    private MessageDigest tokenDigest;
+
+    /**
+     * Claims of tokens whose signature was already checked, keyed by the SHA-256 of the token
+     * and evicted at the token's {@code exp}.
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+    private final MeterRegistry meterRegistry;
+
+    /** {@value #VALIDATIONS_METRIC} by result: cached, verified or the rejecting exception. */
+    private Counter cachedValidations;
+    private Counter verifiedValidations;
+
+    public JwtUtils(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
 
     @PostConstruct
     public void init() {
         this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        try {
+            this.tokenDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheMaxSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build();
+        this.cachedValidations = meterRegistry.counter(VALIDATIONS_METRIC, "result", "cached");
+        this.verifiedValidations = meterRegistry.counter(VALIDATIONS_METRIC, "result", "verified");
     }
 
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(secretKey)
-                .compact();
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs));
+
+        if (jwtEmbedPrincipal) {
+            builder.claim(USER_ID_CLAIM, userPrincipal.getId())
+                    .claim(FULL_NAME_CLAIM, userPrincipal.getFullName())
+                    .claim(ROLES_CLAIM, userPrincipal.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .collect(Collectors.toList()));
+        }
+
+        return builder.signWith(secretKey).compact();
+    }
+
+    /**
+     * Builds the principal from the claims when {@code bankcards.app.jwtEmbedPrincipal} is enabled and the
+     * token carries them. Returns {@code null} otherwise, in which case the user has to be loaded.
+     * Roles taken from the token stay as they were at login until the token expires.
+     */
+    public UserDetailsImpl getPrincipalFromClaims(Claims claims) {
+        if (!jwtEmbedPrincipal || !(claims.get(USER_ID_CLAIM) instanceof Number userId)
+                || !(claims.get(ROLES_CLAIM) instanceof List<?> roles)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+
+        return new UserDetailsImpl(
+                userId.longValue(),
+                claims.getSubject(),
+                claims.get(FULL_NAME_CLAIM, String.class),
+                null,
+                authorities);
+    }
+
+    /**
+     * Verifies the token and returns its claims, or {@code null} if the token is invalid or expired.
+     * Tokens seen before are answered from the cache without checking the signature again.
+     */
+    public Claims getVerifiedClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String tokenHash = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(tokenHash);
+        if (claims != null) {
+            cachedValidations.increment();
+            return claims;
+        }
+
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.error("JWT validation error: {}", e.getMessage());
+            meterRegistry.counter(VALIDATIONS_METRIC, "result", e.getClass().getSimpleName()).increment();
+            return null;
+        }
+        verifiedValidations.increment();
+
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(tokenHash, claims);
+        }
+        return claims;
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
+        return jwtParser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    private String hash(String token) {
+        MessageDigest digest;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            logger.error("JWT validation error: {}", e.getMessage());
-            return false;
+            digest = (MessageDigest) tokenDigest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks passwords and issues tokens on a small dedicated pool.
+ * <p>
+ * A BCrypt check is pure CPU work, so running it on request threads lets a burst of logins take every core away
+ * from card and transfer traffic. The pool is sized below the CPU count and its queue is bounded: when the queue
+ * is full the login is rejected with {@link TooManyRequestsException} instead of waiting.
+ * <p>
+ * On shutdown, logins still queued complete with {@link ServiceUnavailableException} so their async requests
+ * do not wait for the async request timeout, and new logins are refused the same way.
+ */
+@Service
+public class LoginService {
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    private final AuthenticationManager authenticationManager;
+    private final JwtUtils jwtUtils;
+    private final ThreadPoolExecutor loginExecutor;
+
+    public LoginService(AuthenticationManager authenticationManager,
+                        JwtUtils jwtUtils,
+                        @Value("${bankcards.auth.loginThreads:0}") int threads,
+                        @Value("${bankcards.auth.loginQueueCapacity:50}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+        this.jwtUtils = jwtUtils;
+
+        // Half the CPUs by default, so logins can never take more than half of the machine
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loginExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Runnable task : loginExecutor.shutdownNow()) {
+            if (task instanceof LoginTask login) {
+                login.result.completeExceptionally(shuttingDown());
+            }
+        }
+    }
+
+    /**
+     * Authenticates on the login pool and completes with a JWT, or exceptionally with the
+     * {@code AuthenticationException} of a failed login.
+     *
+     * @throws TooManyRequestsException if the login queue is full
+     * @throws ServiceUnavailableException if the login pool is shutting down
+     */
+    public CompletableFuture<String> login(String username, String password) {
+        LoginTask task = new LoginTask(username, password);
+        try {
+            loginExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (loginExecutor.isShutdown()) {
+                throw shuttingDown();
+            }
+            throw new TooManyRequestsException("Too many logins in progress, retry later", RETRY_AFTER_SECONDS);
+        }
+        return task.result;
+    }
+
+    private static ServiceUnavailableException shuttingDown() {
+        return new ServiceUnavailableException("Login service is shutting down");
+    }
+
+    /**
+     * A queued login keeps its future, so {@link #shutdown()} can complete the logins it drains.
+     */
+    private final class LoginTask implements Runnable {
+        private final String username;
+        private final String password;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private LoginTask(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Authentication authentication = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(username, password));
+                result.complete(jwtUtils.generateJwtToken(authentication));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.service.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of {@link UserDetailsImpl} by username, so authenticated requests do not
+ * load the user and its roles on every call.
+ */
+@Component
+public class PrincipalCache {
+    private static final String CACHE_NAME = "principals";
+
+    private final Cache<String, UserDetailsImpl> principals;
+
+    public PrincipalCache(@Value("${bankcards.app.principalCacheTtlSeconds:300}") long ttlSeconds,
+                          @Value("${bankcards.app.principalCacheMaxSize:10000}") long maxSize,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        meterRegistry.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, principals, CACHE_NAME);
+            Gauge.builder("cache.hit.ratio", principals, cache -> cache.stats().hitRate())
+                    .tag("cache", CACHE_NAME)
+                    .description("Share of principal lookups answered without the database")
+                    .register(registry);
+        });
+    }
+
+    public UserDetailsImpl get(String username) {
+        return principals.getIfPresent(username);
+    }
+
+    public void put(UserDetailsImpl userDetails) {
+        principals.put(userDetails.getUsername(), userDetails);
+    }
+
+    public void evict(String username) {
+        afterCommit(() -> principals.invalidate(username));
+    }
+
+    public void evictAll() {
+        afterCommit(principals::invalidateAll);
+    }
+
+    /**
+     * Evicting before commit would let a concurrent request cache the old state again,
+     * so inside a transaction the eviction is deferred until it commits.
+     */
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the cached principal of a user whose roles change. Granting or revoking a role only writes
+ * {@code user_roles}, which fires no {@code @PostUpdate} on {@link User}, so
+ * {@link PrincipalCacheInvalidationListener} never sees it.
+ */
+@Component
+public class PrincipalCacheCollectionListener implements PostCollectionRecreateEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheCollectionListener(EntityManagerFactory entityManagerFactory,
+                                            PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        evict(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        evict(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        evict(event);
+    }
+
+    private void evict(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof User user) {
+            principalCache.evict(user.getUsername());
+        }
+    }
+}
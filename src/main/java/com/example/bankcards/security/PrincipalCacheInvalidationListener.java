@@ -0,0 +1,36 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener on {@link User} and {@link com.example.bankcards.entity.Role} that drops cached principals
+ * when the data they were built from changes. Instantiated by Hibernate through Spring's bean container.
+ * Role grants and revocations only change {@code user_roles} and are handled by
+ * {@link PrincipalCacheCollectionListener}.
+ */
+public class PrincipalCacheInvalidationListener {
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheInvalidationListener(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof User user) {
+            principalCache.evict(user.getUsername());
+        } else {
+            principalCache.evictAll();
+        }
+    }
+
+    /**
+     * A user update may be a rename and a role update affects every holder, so both clear the whole cache.
+     */
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        principalCache.evictAll();
+    }
+}
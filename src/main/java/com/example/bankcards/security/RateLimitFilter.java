@@ -0,0 +1,159 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.response.ErrorResponse;
+import com.example.bankcards.service.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RateLimitProperties} rules. Runs right after {@link JwtAuthenticationFilter}, so the per-user
+ * limit sees the authenticated user; requests without one are limited per IP and globally only.
+ * A rejected request gets 429 with {@code Retry-After} and never reaches the controller or the database.
+ * <p>
+ * Scopes are checked from the most specific (user, IP, global), and a request rejected by one scope gives back
+ * the tokens it took from the others. A user over their own limit therefore does not use up the budget of
+ * their IP or of everyone else.
+ * <p>
+ * The client IP is {@code getRemoteAddr()}; behind a proxy set {@code server.forward-headers-strategy}
+ * so it reflects the forwarded address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String USER_SCOPE = "user";
+    private static final String IP_SCOPE = "ip";
+    private static final String GLOBAL_SCOPE = "global";
+
+    private final List<CompiledRule> rules;
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           ObjectMapper objectMapper,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        this.rules = properties.isEnabled()
+                ? properties.getRules().stream().map(CompiledRule::of).toList()
+                : List.of();
+        this.rateLimiter = new RateLimiter(properties.getMaxBuckets(),
+                Duration.ofSeconds(properties.getIdleTimeoutSeconds()), System::nanoTime);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        for (CompiledRule rule : rules) {
+            if (rule.matcher().matches(request)) {
+                if (!allowed(rule, request, response)) {
+                    return;
+                }
+                break;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean allowed(CompiledRule rule, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Long userId = currentUserId();
+        String userKey = rule.perUser() != null && userId != null ? rule.name() + ":user:" + userId : null;
+        String ipKey = rule.perIp() != null ? rule.name() + ":ip:" + request.getRemoteAddr() : null;
+
+        if (userKey != null && rejected(rule, USER_SCOPE, userKey, rule.perUser(), response)) {
+            return false;
+        }
+        if (ipKey != null && rejected(rule, IP_SCOPE, ipKey, rule.perIp(), response)) {
+            release(userKey, rule.perUser());
+            return false;
+        }
+        if (rule.global() != null && rejected(rule, GLOBAL_SCOPE, rule.name(), rule.global(), response)) {
+            release(userKey, rule.perUser());
+            release(ipKey, rule.perIp());
+            return false;
+        }
+        return true;
+    }
+
+    private void release(String key, RateLimiter.Limit limit) {
+        if (key != null) {
+            rateLimiter.release(key, limit);
+        }
+    }
+
+    private boolean rejected(CompiledRule rule, String scope, String key, RateLimiter.Limit limit,
+                             HttpServletResponse response) throws IOException {
+        long waitNanos = rateLimiter.tryAcquire(key, limit);
+        if (waitNanos == 0) {
+            return false;
+        }
+
+        meterRegistry.counter("bankcards.rate.limit.rejections", "rule", rule.name(), "scope", scope).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("TOO_MANY_REQUESTS",
+                "Rate limit exceeded for " + rule.name() + ", retry after " + retryAfterSeconds + " s"));
+        return true;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl user
+                ? user.getId()
+                : null;
+    }
+
+    private record CompiledRule(String name, RequestMatcher matcher, RateLimiter.Limit perUser,
+                                RateLimiter.Limit perIp, RateLimiter.Limit global) {
+        static CompiledRule of(RateLimitProperties.Rule rule) {
+            String method = StringUtils.hasText(rule.getMethod()) ? rule.getMethod() : null;
+            return new CompiledRule(rule.getName(),
+                    matcher(rule.getPath(), method),
+                    limit(rule.getPerUser()),
+                    limit(rule.getPerIp()),
+                    limit(rule.getGlobal()));
+        }
+
+        /**
+         * Paths without wildcards are compared as strings; {@link AntPathRequestMatcher} would tokenize the
+         * request path on every call.
+         */
+        private static RequestMatcher matcher(String path, String method) {
+            if (path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('{') >= 0) {
+                return new AntPathRequestMatcher(path, method);
+            }
+            return request -> (method == null || method.equalsIgnoreCase(request.getMethod()))
+                    && path.equals(request.getPathInfo() == null
+                    ? request.getServletPath()
+                    : request.getServletPath() + request.getPathInfo());
+        }
+
+        private static RateLimiter.Limit limit(RateLimitProperties.Limit limit) {
+            return limit != null ? RateLimiter.Limit.of(limit.getRatePerSecond(), limit.getBurst()) : null;
+        }
+    }
+}
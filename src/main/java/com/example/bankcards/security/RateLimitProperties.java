@@ -0,0 +1,67 @@
+package com.example.bankcards.security;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request limits under {@code bankcards.rateLimit}. Each rule matches one endpoint and may limit it per user,
+ * per client IP and in total; a request is counted against the first rule that matches it.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "bankcards.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    /** Upper bound on tracked buckets; the least recently used ones are dropped first. */
+    @Positive
+    private long maxBuckets = 100_000;
+
+    /** A bucket unused this long is dropped; it should exceed the time a bucket takes to refill. */
+    @Positive
+    private long idleTimeoutSeconds = 600;
+
+    @Valid
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        @NotBlank
+        private String name;
+
+        /** HTTP method, or any method when empty. */
+        private String method;
+
+        /** Ant-style path pattern. */
+        @NotBlank
+        private String path;
+
+        @Valid
+        private Limit perUser;
+
+        @Valid
+        private Limit perIp;
+
+        @Valid
+        private Limit global;
+    }
+
+    @Data
+    public static class Limit {
+        /** Sustained rate. */
+        @Positive
+        private double ratePerSecond;
+
+        /** Requests allowed at once after a quiet period. */
+        @Min(1)
+        private int burst = 1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets kept as the generic cell rate algorithm (GCRA): a bucket is a single {@link AtomicLong} holding
+ * the theoretical arrival time of the next request, and taking a token is one compare-and-set, so concurrent
+ * requests for the same key never block each other.
+ * <p>
+ * Buckets live in a bounded cache that drops idle ones; a dropped bucket starts again full.
+ */
+public class RateLimiter {
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(long maxBuckets, Duration idleTimeout, LongSupplier nanoClock) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                // Maintenance is a few pointer updates; handing it to the common pool costs more than doing it
+                .executor(Runnable::run)
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the bucket of {@code key}. Returns 0 if the request is allowed, otherwise the
+     * nanoseconds until a token becomes available.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival == null) {
+            arrival = buckets.get(key, k -> new AtomicLong(nanoClock.getAsLong()));
+        }
+
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = arrival.get();
+            long next = Math.max(current, now);
+            long wait = next - now - limit.toleranceNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next + limit.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire}, for a request that another limit then rejected.
+     */
+    public void release(String key, Limit limit) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival != null) {
+            arrival.addAndGet(-limit.intervalNanos());
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * One token every {@code intervalNanos}; up to {@code burst} tokens can be taken at once.
+     */
+    public record Limit(long intervalNanos, long toleranceNanos) {
+        public static Limit of(double ratePerSecond, int burst) {
+            long interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+            return new Limit(interval, interval * (burst - 1));
+        }
+    }
+}
@@ -7,25 +7,37 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
+    /**
+     * Served from {@link PrincipalCache} when possible; a miss loads the user together with its roles
+     * in a single query. The cache is read and filled outside {@code Cache.get(key, loader)} so that
+     * no cache lock is held while the database is queried.
+     */
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserDetailsImpl cached = principalCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findWithRolesByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         String.format("User with username '%s' not found", username)));
 
-        return UserDetailsImpl.build(user);
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        principalCache.put(userDetails);
+        return userDetails;
     }
 
     private UserDetails buildUserDetails(User user) {
@@ -0,0 +1,87 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Marks cards past their expiry date as {@code EXPIRED}, so reads and transfers can trust the stored status.
+ * <p>
+ * Each chunk is one autocommitted UPDATE of at most {@code batchSize} rows found through the partial index on
+ * {@code expiry_date}. Rows locked by a running transfer are skipped and picked up by the next sweep, so the
+ * job never waits on user requests, and the pause between chunks leaves room for them.
+ */
+@Component
+public class CardExpirySweeper {
+    private static final Logger logger = LoggerFactory.getLogger(CardExpirySweeper.class);
+
+    private static final String EXPIRE_SQL =
+            "UPDATE cards SET status = 'EXPIRED', version = version + 1 WHERE id IN (" +
+                    "SELECT id FROM cards WHERE expiry_date < ? AND status <> 'EXPIRED' " +
+                    "LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long pauseMs;
+    private final Counter expiredCards;
+    private final Timer chunkTimer;
+
+    public CardExpirySweeper(JdbcTemplate jdbcTemplate,
+                             @Value("${bankcards.app.expirySweepBatchSize:1000}") int batchSize,
+                             @Value("${bankcards.app.expirySweepPauseMs:100}") long pauseMs,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.expiredCards = Counter.builder("bankcards.card.expiry.sweep.rows")
+                .description("Cards marked EXPIRED by the expiry sweeper")
+                .register(registry);
+        this.chunkTimer = Timer.builder("bankcards.card.expiry.sweep.chunk")
+                .description("Time of one expiry sweeper UPDATE")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${bankcards.app.expirySweepInitialDelayMs:60000}",
+            fixedDelayString = "${bankcards.app.expirySweepIntervalMs:3600000}")
+    public void sweep() {
+        // Same clock as activateCard, rather than the database's current_date
+        Date today = Date.valueOf(LocalDate.now());
+        long total = 0;
+        int updated;
+        do {
+            updated = chunkTimer.record(() -> jdbcTemplate.update(EXPIRE_SQL, today, batchSize));
+            expiredCards.increment(updated);
+            total += updated;
+        } while (updated == batchSize && pause());
+
+        if (total > 0) {
+            logger.info("Marked {} cards as expired", total);
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of card exports running at once.
+ * <p>
+ * An export keeps a database cursor, and with it a pooled connection, open for as long as the client reads.
+ * Without a cap a few slow clients can hold the whole connection pool. A permit is taken on the request thread
+ * before the response is started, so an export over the cap gets 429 instead of waiting for a connection.
+ */
+@Component
+public class CardExportLimiter {
+    static final long RETRY_AFTER_SECONDS = 5;
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+
+    public CardExportLimiter(@Value("${bankcards.app.exportMaxConcurrent:4}") int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("exportMaxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return a permit to be closed once the export is written
+     * @throws TooManyRequestsException if {@code exportMaxConcurrent} exports are already running
+     */
+    public Permit acquire() {
+        if (!permits.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports in progress, retry later", RETRY_AFTER_SECONDS);
+        }
+        return new Permit();
+    }
+
+    /**
+     * Closing a permit more than once releases it only once.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
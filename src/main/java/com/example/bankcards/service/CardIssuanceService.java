@@ -0,0 +1,318 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CardIssueRequest;
+import com.example.bankcards.dto.response.CardIssueResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidBulkIssueException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.EncryptionUtil;
+import com.example.bankcards.util.enums.CardIssueStatus;
+import com.example.bankcards.util.enums.CardStatus;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Issues many cards to one user in a single request.
+ * <p>
+ * Valid rows are split into chunks. Chunks are encrypted and masked on a bounded pool while earlier chunks are
+ * written, each in its own transaction: numbers that already exist are found with one {@code IN} query and the
+ * rest is inserted with one JDBC batch. Every row gets its own result, so a duplicate does not fail the upload,
+ * and the masked number is kept from encryption time instead of being decrypted again.
+ */
+@Service
+public class CardIssuanceService {
+    private static final Logger logger = LoggerFactory.getLogger(CardIssuanceService.class);
+
+    private static final String RESERVE_IDS_SQL = "SELECT nextval('cards_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO cards (id, card_number, masked_number, last4, card_holder, expiry_date, status, balance, " +
+                    "version, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?) ON CONFLICT (card_number) DO NOTHING";
+
+    private final CardRepository cardRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final CardMasker cardMasker;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxRows;
+    private final int chunksInFlight;
+    private final ThreadPoolExecutor encryptionExecutor;
+    private final CsvMapper csvMapper;
+
+    public CardIssuanceService(CardRepository cardRepository,
+                               EncryptionUtil encryptionUtil,
+                               CardMasker cardMasker,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               Validator validator,
+                               @Value("${bankcards.app.issueChunkSize:1000}") int chunkSize,
+                               @Value("${bankcards.app.issueMaxRows:500000}") int maxRows,
+                               @Value("${bankcards.app.issueThreads:0}") int threads) {
+        this.cardRepository = cardRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.cardMasker = cardMasker;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunksInFlight = poolSize * 2;
+        // Concurrent uploads share the pool; once its queue is full the request thread encrypts the chunk itself.
+        // After shutdown the chunk is rejected instead: CallerRunsPolicy would drop it and leave its Future pending
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.encryptionExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunksInFlight),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "card-issue-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Card issuance is shutting down");
+                    }
+                    runnable.run();
+                });
+
+        this.csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .build();
+    }
+
+    /**
+     * Stops the encryption threads. Chunks still queued are cancelled, so uploads waiting for them fail
+     * instead of blocking forever.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Runnable queued : encryptionExecutor.shutdownNow()) {
+            if (queued instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Reads rows from a CSV with a header line naming the {@link CardIssueRequest} fields, then issues them.
+     */
+    public List<CardIssueResult> issueCardsFromCsv(InputStream csv, User user) {
+        List<CardIssueRequest> rows;
+        try (MappingIterator<CardIssueRequest> iterator = csvMapper.readerFor(CardIssueRequest.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(csv)) {
+            rows = iterator.readAll();
+        } catch (IOException e) {
+            throw new InvalidBulkIssueException("Malformed CSV: " + e.getMessage());
+        }
+        return issueCards(rows, user);
+    }
+
+    /**
+     * Returns one result per row, in request order. Chunks written before a failure stay committed.
+     */
+    public List<CardIssueResult> issueCards(List<CardIssueRequest> rows, User user) {
+        if (rows.size() > maxRows) {
+            throw new InvalidBulkIssueException("At most " + maxRows + " cards can be issued at once");
+        }
+
+        CardIssueResult[] results = new CardIssueResult[rows.size()];
+        List<PendingCard> pending = validate(rows, results);
+
+        Deque<Future<List<EncryptedCard>>> inFlight = new ArrayDeque<>();
+        try {
+            for (int from = 0; from < pending.size(); from += chunkSize) {
+                List<PendingCard> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+                inFlight.add(submit(() -> encrypt(chunk)));
+                if (inFlight.size() >= chunksInFlight) {
+                    write(await(inFlight.poll()), user, results);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), user, results);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+
+        long issued = Arrays.stream(results).filter(result -> result.getStatus() == CardIssueStatus.ISSUED).count();
+        logger.info("Issued {} of {} cards for user {}", issued, rows.size(), user.getId());
+        return Arrays.asList(results);
+    }
+
+    private List<PendingCard> validate(List<CardIssueRequest> rows, CardIssueResult[] results) {
+        List<PendingCard> pending = new ArrayList<>(rows.size());
+        Set<String> cardNumbers = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            CardIssueRequest row = rows.get(i);
+            Set<ConstraintViolation<CardIssueRequest>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                results[i] = new CardIssueResult(i, null, null, CardIssueStatus.INVALID, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else if (!cardNumbers.add(row.getCardNumber())) {
+                results[i] = new CardIssueResult(i, null, cardMasker.maskCardNumber(row.getCardNumber()),
+                        CardIssueStatus.DUPLICATE, "Card number appears earlier in the request");
+            } else {
+                pending.add(new PendingCard(i, row));
+            }
+        }
+        return pending;
+    }
+
+    private List<EncryptedCard> encrypt(List<PendingCard> chunk) {
+        List<String> encryptedNumbers = encryptionUtil.encryptAll(chunk.stream()
+                .map(card -> card.row().getCardNumber())
+                .collect(Collectors.toList()));
+
+        List<EncryptedCard> encrypted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PendingCard card = chunk.get(i);
+            String cardNumber = card.row().getCardNumber();
+            encrypted.add(new EncryptedCard(card.index(), card.row(), encryptedNumbers.get(i),
+                    cardMasker.maskCardNumber(cardNumber), cardMasker.lastFour(cardNumber)));
+        }
+        return encrypted;
+    }
+
+    private void write(List<EncryptedCard> chunk, User user, CardIssueResult[] results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> existing = new HashSet<>(cardRepository.findExistingCardNumbers(chunk.stream()
+                    .map(EncryptedCard::encryptedNumber)
+                    .collect(Collectors.toList())));
+
+            List<EncryptedCard> cards = new ArrayList<>(chunk.size());
+            for (EncryptedCard card : chunk) {
+                if (existing.contains(card.encryptedNumber())) {
+                    results[card.index()] = duplicate(card);
+                } else {
+                    cards.add(card);
+                }
+            }
+            if (cards.isEmpty()) {
+                return;
+            }
+
+            List<Long> ids = reserveIds(cards.size());
+            List<Integer> positions = new ArrayList<>(cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                positions.add(i);
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, positions, positions.size(), (ps, i) -> {
+                EncryptedCard card = cards.get(i);
+                CardIssueRequest row = card.row();
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, card.encryptedNumber());
+                ps.setString(3, card.maskedNumber());
+                ps.setString(4, card.last4());
+                ps.setString(5, row.getCardHolder());
+                ps.setDate(6, Date.valueOf(row.getExpiryDate()));
+                ps.setString(7, CardStatus.ACTIVE.name());
+                ps.setBigDecimal(8, row.getBalance() != null ? row.getBalance() : BigDecimal.ZERO);
+                ps.setLong(9, user.getId());
+            });
+
+            // Rewritten batches report no per-row counts, so rows lost to a concurrent insert are found by id
+            Set<Long> inserted = new HashSet<>(cardRepository.findExistingIds(ids));
+            for (int i = 0; i < cards.size(); i++) {
+                EncryptedCard card = cards.get(i);
+                Long id = ids.get(i);
+                results[card.index()] = inserted.contains(id)
+                        ? new CardIssueResult(card.index(), id, card.maskedNumber(), CardIssueStatus.ISSUED, null)
+                        : duplicate(card);
+            }
+        });
+    }
+
+    /**
+     * Takes ids from {@code cards_seq} the way Hibernate's pooled optimizer does, so they never collide with
+     * ids of cards created through JPA.
+     */
+    private List<Long> reserveIds(int count) {
+        int blocks = (count + Card.ID_ALLOCATION_SIZE - 1) / Card.ID_ALLOCATION_SIZE;
+        List<Long> ids = new ArrayList<>(count);
+        for (Long blockEnd : jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, blocks)) {
+            for (long id = blockEnd - Card.ID_ALLOCATION_SIZE + 1; id <= blockEnd && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static CardIssueResult duplicate(EncryptedCard card) {
+        return new CardIssueResult(card.index(), null, card.maskedNumber(), CardIssueStatus.DUPLICATE,
+                "Card number already exists");
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return encryptionExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Card issuance is shutting down", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while issuing cards", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Card issuance is shutting down", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record PendingCard(int index, CardIssueRequest row) {
+    }
+
+    private record EncryptedCard(int index, CardIssueRequest row, String encryptedNumber,
+                                 String maskedNumber, String last4) {
+    }
+}
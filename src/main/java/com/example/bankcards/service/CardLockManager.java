@@ -0,0 +1,108 @@
+package com.example.bankcards.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process locks for card ids, striped over a fixed array of {@link ReentrantLock}s so memory does not grow
+ * with the number of cards. Cards sharing a stripe simply serialize with each other.
+ * <p>
+ * Stripes are always taken in ascending order, so two transfers never wait for each other in opposite order.
+ * {@link ReentrantLock} rather than {@code synchronized} keeps a waiting virtual thread unmounted and allows a
+ * bounded wait. The locks are fair: with barging a busy card kept going to whichever thread had just released
+ * it, and the others ran into the lock timeout.
+ */
+@Component
+public class CardLockManager {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public CardLockManager(@Value("${bankcards.transfer.cardLockStripes:1024}") int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("cardLockStripes must be positive");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = this.stripes.length - 1;
+    }
+
+    /**
+     * Locks both cards, waiting at most {@code timeout} in total.
+     *
+     * @return the held locks, to be closed once the transfer is done, or {@code null} if the wait timed out
+     */
+    public CardLocks tryLock(long firstCardId, long secondCardId, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        int first = stripe(firstCardId);
+        int second = stripe(secondCardId);
+        int[] order = first == second
+                ? new int[]{first}
+                : new int[]{Math.min(first, second), Math.max(first, second)};
+        return tryLock(order, timeout, unit);
+    }
+
+    /**
+     * Locks every card of a group of transfers, waiting at most {@code timeout} in total.
+     *
+     * @see #tryLock(long, long, long, TimeUnit)
+     */
+    public CardLocks tryLock(Collection<Long> cardIds, long timeout, TimeUnit unit) throws InterruptedException {
+        int[] order = cardIds.stream().mapToInt(this::stripe).sorted().distinct().toArray();
+        return tryLock(order, timeout, unit);
+    }
+
+    private CardLocks tryLock(int[] order, long timeout, TimeUnit unit) throws InterruptedException {
+        ReentrantLock[] held = new ReentrantLock[order.length];
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int count = 0;
+        try {
+            for (int stripe : order) {
+                ReentrantLock lock = stripes[stripe];
+                if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    unlock(held, count);
+                    return null;
+                }
+                held[count++] = lock;
+            }
+        } catch (InterruptedException e) {
+            unlock(held, count);
+            throw e;
+        }
+        return new CardLocks(held);
+    }
+
+    private static void unlock(ReentrantLock[] held, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    int stripe(long cardId) {
+        // Card ids are sequential, so the low bits alone already spread them evenly
+        return Long.hashCode(cardId) & mask;
+    }
+
+    public static final class CardLocks implements AutoCloseable {
+        private final ReentrantLock[] held;
+
+        private CardLocks(ReentrantLock[] held) {
+            this.held = held;
+        }
+
+        @Override
+        public void close() {
+            unlock(held, held.length);
+        }
+    }
+}
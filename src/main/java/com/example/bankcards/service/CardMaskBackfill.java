@@ -0,0 +1,112 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fills {@code cards.masked_number} and {@code cards.last4} for rows created before these columns existed.
+ * <p>
+ * The values can only be computed with the encryption key, so this runs in the application rather than
+ * in the Liquibase changeset. Rows are processed in id order, one transaction per batch.
+ * <p>
+ * Legacy rows whose number is not 13 to 19 digits keep both columns null, since masking them could leave the
+ * number readable or overflow the column; they are masked when read instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardMaskBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(CardMaskBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final CardMasker cardMasker;
+
+    @Value("${bankcards.app.maskBackfillBatchSize:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        int total = 0;
+        int skipped = 0;
+
+        while (true) {
+            long afterId = lastId;
+            List<MaskedRow> batch = transactionTemplate.execute(status -> backfillBatch(afterId));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).id();
+            for (MaskedRow row : batch) {
+                if (row.maskedNumber() != null) {
+                    total++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        if (total > 0) {
+            logger.info("Backfilled masked card numbers for {} cards", total);
+        }
+        if (skipped > 0) {
+            logger.warn("Left {} cards without a masked number: their card number is not 13 to 19 digits", skipped);
+        }
+    }
+
+    private List<MaskedRow> backfillBatch(long afterId) {
+        List<EncryptedRow> rows = jdbcTemplate.query(
+                "SELECT id, card_number FROM cards WHERE masked_number IS NULL AND id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new EncryptedRow(rs.getLong("id"), rs.getString("card_number")),
+                afterId, batchSize);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> cardNumbers = encryptionUtil.decryptAll(rows.stream()
+                .map(EncryptedRow::cardNumber)
+                .collect(Collectors.toList()));
+
+        List<MaskedRow> masked = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String cardNumber = cardNumbers.get(i);
+            masked.add(CardMasker.isCardNumber(cardNumber)
+                    ? new MaskedRow(rows.get(i).id(), cardMasker.maskCardNumber(cardNumber),
+                    cardMasker.lastFour(cardNumber))
+                    : new MaskedRow(rows.get(i).id(), null, null));
+        }
+
+        List<MaskedRow> updates = masked.stream()
+                .filter(row -> row.maskedNumber() != null)
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(
+                "UPDATE cards SET masked_number = ?, last4 = ? WHERE id = ? AND masked_number IS NULL",
+                updates, updates.size(),
+                (ps, row) -> {
+                    ps.setString(1, row.maskedNumber());
+                    ps.setString(2, row.last4());
+                    ps.setLong(3, row.id());
+                });
+        return masked;
+    }
+
+    private record EncryptedRow(long id, String cardNumber) {
+    }
+
+    private record MaskedRow(long id, String maskedNumber, String last4) {
+    }
+}
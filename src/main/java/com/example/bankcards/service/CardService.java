@@ -1,7 +1,10 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.CursorPage;
+import com.example.bankcards.dto.response.TransferResult;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardBlockedException;
@@ -11,6 +14,8 @@ import com.example.bankcards.exception.UnauthorizedCardAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CardService {
@@ -21,7 +26,15 @@ public interface CardService {
     CardDto activateCard(Long id, User user) throws CardNotFoundException, UnauthorizedCardAccessException;
     CardDto getCardById(Long id, User user) throws CardNotFoundException, UnauthorizedCardAccessException;
     List<CardDto> getAllUserCards(User user);
+    void exportUserCards(User user, boolean ndjson, OutputStream out) throws IOException;
     Page<CardDto> getUserCardsWithFilter(User user, String search, String status, Pageable pageable);
+    CursorPage<CardDto> getUserCardsAfter(User user, String sort, String after, int size);
+    void checkTransferCards(TransferRequest transferRequest, User user) throws CardNotFoundException;
     void transferBetweenCards(TransferRequest transferRequest, User user)
             throws CardNotFoundException, UnauthorizedCardAccessException, InsufficientFundsException, CardBlockedException;
+    boolean transferBetweenCards(TransferRequest transferRequest, User user, String idempotencyKey)
+            throws CardNotFoundException, UnauthorizedCardAccessException, InsufficientFundsException, CardBlockedException;
+    List<TransferResult> transferBatch(List<TransferRequest> transfers, User user);
+    CursorPage<TransactionDto> getCardTransactions(Long id, User user, String after, int size)
+            throws CardNotFoundException, UnauthorizedCardAccessException;
 }
\ No newline at end of file
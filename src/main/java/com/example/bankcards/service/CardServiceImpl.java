@@ -1,38 +1,114 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.CursorPage;
+import com.example.bankcards.dto.response.TransferResult;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardBlockedException;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidCardNumberException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.exception.UnauthorizedCardAccessException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.CardView;
 import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.CursorCodec;
 import com.example.bankcards.util.EncryptionUtil;
 import com.example.bankcards.util.enums.CardStatus;
-
+import com.example.bankcards.util.enums.TransactionType;
+import com.example.bankcards.util.enums.TransferStatus;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "bankcards.card.service", histogram = true)
 public class CardServiceImpl implements CardService{
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE cards SET balance = ?, version = version + 1 WHERE id = ?";
+    private static final int MAX_TRANSACTIONS_PAGE_SIZE = 100;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String SORT_BY_ID = "id";
+    private static final String SORT_BY_EXPIRY_DATE = "expiryDate";
+    private static final String SORT_BY_CREATED_AT = "createdAt";
+    private static final int CARD_OWNER_CACHE_SIZE = 100_000;
+
     private final CardRepository cardRepository;
     private final EncryptionUtil encryptionUtil;
     private final CardMasker cardMasker;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdempotencyKeyStore idempotencyKeys;
+    private final CardTransactionRepository transactionRepository;
+    private final CursorCodec cursorCodec;
+    private final EntityManager entityManager;
+
+    // Built like the MVC message converter's mapper, so exported cards look the same as in /api/cards/all
+    private final ObjectMapper exportMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    // Owner user id by card id. A card never changes owner and ids are never reused, so entries stay valid;
+    // a card deleted meanwhile is still reported by the transfer itself
+    private final Cache<Long, Long> cardOwners = Caffeine.newBuilder()
+            .maximumSize(CARD_OWNER_CACHE_SIZE)
+            .build();
+
+    @Value("${bankcards.transfer.atomicUpdates:true}")
+    private boolean atomicUpdates;
 
     @Override
     @Transactional
     public CardDto createCard(Card card, User user) {
+        if (!CardMasker.isCardNumber(card.getCardNumber())) {
+            throw new InvalidCardNumberException("Card number must be 13 to 19 digits");
+        }
+        card.setMaskedNumber(cardMasker.maskCardNumber(card.getCardNumber()));
+        card.setLast4(cardMasker.lastFour(card.getCardNumber()));
         card.setCardNumber(encryptionUtil.encrypt(card.getCardNumber()));
         card.setUser(user);
         card.setStatus(CardStatus.ACTIVE);
@@ -113,10 +189,10 @@ public class CardServiceImpl implements CardService{
     @Transactional(readOnly = true)
     public CardDto getCardById(Long id, User user)
             throws CardNotFoundException, UnauthorizedCardAccessException {
-        Card card = cardRepository.findById(id)
+        CardView card = cardRepository.findViewById(id)
                 .orElseThrow(() -> new CardNotFoundException(id));
 
-        if (!card.getUser().getId().equals(user.getId())) {
+        if (!card.userId().equals(user.getId())) {
             throw new UnauthorizedCardAccessException("You are not authorized to view this card");
         }
 
@@ -126,9 +202,7 @@ public class CardServiceImpl implements CardService{
     @Override
     @Transactional(readOnly = true)
     public List<CardDto> getAllUserCards(User user) {
-        return cardRepository.findByUser(user).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertViewsToDtos(cardRepository.findViewsByUser(user));
     }
 
 
@@ -143,25 +217,149 @@ public class CardServiceImpl implements CardService{
             }
         }
 
-        Page<Card> cardsPage = cardRepository.findByUserAndSearch(
-                user,
-                search != null ? search : "",
-                cardStatus,
-                pageable);
+        Specification<Card> filter = Specification.where(CardSpecifications.ownedBy(user))
+                .and(CardSpecifications.cardHolderContains(search))
+                .and(CardSpecifications.hasStatus(cardStatus));
+        Page<CardView> cardsPage = cardRepository.findViews(filter, pageable);
 
-        return cardsPage.map(this::convertToDto);
+        return new PageImpl<>(convertViewsToDtos(cardsPage.getContent()), cardsPage.getPageable(), cardsPage.getTotalElements());
     }
 
+    /**
+     * Writes every card of the user to {@code out} as it is read from the database cursor, either as one
+     * JSON array or as newline-delimited JSON. Each entity is detached once written, so memory use does not
+     * grow with the number of cards.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUserCards(User user, boolean ndjson, OutputStream out) throws IOException {
+        try (Stream<Card> cards = cardRepository.streamByUser(user);
+             JsonGenerator generator = exportMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+
+            Iterator<Card> iterator = cards.iterator();
+            while (iterator.hasNext()) {
+                Card card = iterator.next();
+                generator.writeObject(convertToDto(card));
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                entityManager.detach(card);
+            }
+
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Keyset scroll over the user's cards ordered by {@code id} or by {@code expiryDate} then {@code id}.
+     * Each page seeks past the row named by {@code after}, so deep pages cost the same as the first one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CardDto> getUserCardsAfter(User user, String sort, String after, int size) {
+        boolean byExpiryDate = SORT_BY_EXPIRY_DATE.equals(sort);
+        String sortKey = byExpiryDate ? SORT_BY_EXPIRY_DATE : SORT_BY_ID;
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE)));
+
+        Slice<Card> cards;
+        if (after == null || after.isEmpty()) {
+            Sort order = byExpiryDate ? Sort.by(SORT_BY_EXPIRY_DATE, SORT_BY_ID) : Sort.by(SORT_BY_ID);
+            cards = cardRepository.findByUser(user, PageRequest.of(0, pageable.getPageSize(), order));
+        } else {
+            CursorCodec.Cursor cursor = cursorCodec.decode(after, sortKey);
+            cards = byExpiryDate
+                    ? cardRepository.findByUserAfterExpiryDate(user, parseExpiryDate(cursor.value()), cursor.id(), pageable)
+                    : cardRepository.findByUserAfterId(user, cursor.id(), pageable);
+        }
+
+        List<CardDto> content = convertToDtos(cards.getContent());
+        String nextCursor = null;
+        if (cards.hasNext()) {
+            CardDto last = content.get(content.size() - 1);
+            String value = byExpiryDate ? last.getExpiryDate().toString() : "";
+            nextCursor = cursorCodec.encode(sortKey, value, last.getId());
+        }
+        return new CursorPage<>(content, cards.hasNext(), nextCursor);
+    }
+
+    private static LocalDate parseExpiryDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    /**
+     * Row locks are always taken in ascending card id order, so two opposite transfers between the same
+     * cards wait for each other instead of deadlocking. Lock and serialization failures that still happen
+     * roll the transaction back and are retried with a bounded, jittered backoff.
+     */
     @Override
     @Transactional
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            maxAttemptsExpression = "${bankcards.transfer.retryMaxAttempts:5}",
+            backoff = @Backoff(delayExpression = "${bankcards.transfer.retryDelayMs:20}",
+                    maxDelayExpression = "${bankcards.transfer.retryMaxDelayMs:500}",
+                    multiplier = 2, random = true))
     public void transferBetweenCards(TransferRequest transferRequest, User user)
             throws CardNotFoundException, UnauthorizedCardAccessException,
             InsufficientFundsException, CardBlockedException {
-        Card fromCard = cardRepository.findByIdAndUser(transferRequest.getFromCardId(), user)
-                .orElseThrow(() -> new CardNotFoundException("Source card not found or not owned by user"));
+        transfer(transferRequest, user);
+    }
 
-        Card toCard = cardRepository.findByIdAndUser(transferRequest.getToCardId(), user)
-                .orElseThrow(() -> new CardNotFoundException("Destination card not found or not owned by user"));
+    /**
+     * Same as {@link #transferBetweenCards(TransferRequest, User)}, but the key is recorded in the same
+     * transaction as the balance change. Returns {@code true} without moving money if this transfer already
+     * completed under the key. Rejected transfers are rolled back together with the key, so a retry runs again.
+     */
+    @Override
+    @Transactional
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            maxAttemptsExpression = "${bankcards.transfer.retryMaxAttempts:5}",
+            backoff = @Backoff(delayExpression = "${bankcards.transfer.retryDelayMs:20}",
+                    maxDelayExpression = "${bankcards.transfer.retryMaxDelayMs:500}",
+                    multiplier = 2, random = true))
+    public boolean transferBetweenCards(TransferRequest transferRequest, User user, String idempotencyKey)
+            throws CardNotFoundException, UnauthorizedCardAccessException,
+            InsufficientFundsException, CardBlockedException {
+        if (!idempotencyKeys.claim(user.getId(), idempotencyKey, fingerprint(transferRequest))) {
+            return true;
+        }
+
+        transfer(transferRequest, user);
+        return false;
+    }
+
+    private void transfer(TransferRequest transferRequest, User user) {
+        if (atomicUpdates) {
+            transferWithConditionalUpdates(transferRequest, user);
+        } else {
+            transferWithLockedCards(transferRequest, user);
+        }
+
+        List<CardTransaction> entries = new ArrayList<>(2);
+        addLedgerEntries(entries, transferRequest, LocalDateTime.now());
+        transactionRepository.saveAll(entries);
+    }
+
+    private void transferWithLockedCards(TransferRequest transferRequest, User user) {
+        Card fromCard;
+        Card toCard;
+        if (transferRequest.getFromCardId() <= transferRequest.getToCardId()) {
+            fromCard = lockSourceCard(transferRequest, user);
+            toCard = lockDestinationCard(transferRequest, user);
+        } else {
+            toCard = lockDestinationCard(transferRequest, user);
+            fromCard = lockSourceCard(transferRequest, user);
+        }
 
         if (fromCard.getStatus() != CardStatus.ACTIVE || toCard.getStatus() != CardStatus.ACTIVE) {
             throw new CardBlockedException("One of the cards is blocked or expired");
@@ -178,14 +376,327 @@ public class CardServiceImpl implements CardService{
         cardRepository.save(toCard);
     }
 
+    /**
+     * Moves the money with two conditional UPDATE statements and no entity loading. The statements run in
+     * ascending card id order, like the locks in the entity path. The reason for a rejected transfer is only
+     * looked up when an UPDATE matched no row, and the exception rolls back the statement that already ran.
+     */
+    private void transferWithConditionalUpdates(TransferRequest transferRequest, User user) {
+        if (transferRequest.getFromCardId() <= transferRequest.getToCardId()) {
+            debit(transferRequest, user);
+            credit(transferRequest, user, true);
+        } else {
+            credit(transferRequest, user, false);
+            debit(transferRequest, user);
+        }
+    }
+
+    private void debit(TransferRequest transferRequest, User user) {
+        int updated = cardRepository.debitIfSufficient(
+                transferRequest.getFromCardId(), user.getId(), transferRequest.getAmount());
+        if (updated == 0) {
+            rejectTransfer(transferRequest, user, false);
+        }
+    }
+
+    private void credit(TransferRequest transferRequest, User user, boolean debited) {
+        int updated = cardRepository.creditIfActive(
+                transferRequest.getToCardId(), user.getId(), transferRequest.getAmount());
+        if (updated == 0) {
+            rejectTransfer(transferRequest, user, debited);
+        }
+    }
+
+    /**
+     * Always throws. Locks both cards with one select, in id order, and checks them the way
+     * {@link #transferWithLockedCards} does: ownership in card id order, then status, then funds. A transfer
+     * failing several checks gets the same error whichever UPDATE matched no row. {@code debited} means this
+     * transaction has already taken the amount from the source card, so it is added back for the funds check.
+     * <p>
+     * The cards may have changed between the UPDATE and the lock. If nothing is wrong with them any more, the
+     * transfer is rolled back with {@link OptimisticLockingFailureException} and retried like a lock failure.
+     */
+    private void rejectTransfer(TransferRequest transferRequest, User user, boolean debited) {
+        Long fromCardId = transferRequest.getFromCardId();
+        Long toCardId = transferRequest.getToCardId();
+        Map<Long, Card> cards = cardRepository.findAllForTransfer(List.of(fromCardId, toCardId), user).stream()
+                .collect(Collectors.toMap(Card::getId, card -> card));
+        Card fromCard = cards.get(fromCardId);
+        Card toCard = cards.get(toCardId);
+
+        if (fromCard == null && (toCard != null || fromCardId <= toCardId)) {
+            throw new CardNotFoundException("Source card not found or not owned by user");
+        }
+        if (toCard == null) {
+            throw new CardNotFoundException("Destination card not found or not owned by user");
+        }
+        if (fromCard.getStatus() != CardStatus.ACTIVE || toCard.getStatus() != CardStatus.ACTIVE) {
+            throw new CardBlockedException("One of the cards is blocked or expired");
+        }
+
+        BigDecimal available = debited
+                ? fromCard.getBalance().add(transferRequest.getAmount())
+                : fromCard.getBalance();
+        if (available.compareTo(transferRequest.getAmount()) < 0) {
+            throw new InsufficientFundsException("Insufficient funds on source card");
+        }
+        throw new OptimisticLockingFailureException("Cards of the transfer changed while it was applied");
+    }
+
+    /**
+     * Checks that both cards belong to the user without locking them. A card missing or owned by someone else
+     * is reported the way the transfer itself would report it.
+     * <p>
+     * Confirmed owners are cached, so repeated transfers on the same cards, the hot path this check guards,
+     * run no query and open no transaction here; only a card not seen yet is looked up.
+     */
+    @Override
+    public void checkTransferCards(TransferRequest transferRequest, User user) throws CardNotFoundException {
+        Long fromCardId = transferRequest.getFromCardId();
+        Long toCardId = transferRequest.getToCardId();
+        boolean sourceOwned = user.getId().equals(cardOwners.getIfPresent(fromCardId));
+        boolean destinationOwned = user.getId().equals(cardOwners.getIfPresent(toCardId));
+        if (sourceOwned && destinationOwned) {
+            return;
+        }
+
+        List<Long> owned = cardRepository.findOwnedIds(List.of(fromCardId, toCardId), user);
+        owned.forEach(id -> cardOwners.put(id, user.getId()));
+        sourceOwned = owned.contains(fromCardId);
+        destinationOwned = owned.contains(toCardId);
+        if (!sourceOwned && (destinationOwned || fromCardId <= toCardId)) {
+            throw new CardNotFoundException("Source card not found or not owned by user");
+        }
+        if (!destinationOwned) {
+            throw new CardNotFoundException("Destination card not found or not owned by user");
+        }
+    }
+
+    private static String fingerprint(TransferRequest transferRequest) {
+        return transferRequest.getFromCardId() + ":" + transferRequest.getToCardId() + ":"
+                + transferRequest.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    private Card lockSourceCard(TransferRequest transferRequest, User user) {
+        return cardRepository.findByIdAndUser(transferRequest.getFromCardId(), user)
+                .orElseThrow(() -> new CardNotFoundException("Source card not found or not owned by user"));
+    }
+
+    private Card lockDestinationCard(TransferRequest transferRequest, User user) {
+        return cardRepository.findByIdAndUser(transferRequest.getToCardId(), user)
+                .orElseThrow(() -> new CardNotFoundException("Destination card not found or not owned by user"));
+    }
+
+    /**
+     * Locks every card involved with one query, applies the transfers in request order against in-memory
+     * balances and writes the changed balances with a single JDBC batch. A rejected item does not affect the
+     * others; later items see the balances left by earlier ones.
+     */
+    @Override
+    @Transactional
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            maxAttemptsExpression = "${bankcards.transfer.retryMaxAttempts:5}",
+            backoff = @Backoff(delayExpression = "${bankcards.transfer.retryDelayMs:20}",
+                    maxDelayExpression = "${bankcards.transfer.retryMaxDelayMs:500}",
+                    multiplier = 2, random = true))
+    public List<TransferResult> transferBatch(List<TransferRequest> transfers, User user) {
+        Set<Long> cardIds = new TreeSet<>();
+        for (TransferRequest transfer : transfers) {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
+        }
+
+        Map<Long, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllForTransfer(cardIds, user)) {
+            cards.put(card.getId(), card);
+        }
+
+        // Changed balances only, kept in id order so the updates hit rows in lock order
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        List<CardTransaction> entries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            TransferStatus status = applyTransfer(transfer, cards, balances);
+            if (status == TransferStatus.SUCCESS) {
+                addLedgerEntries(entries, transfer, now);
+            }
+            results.add(new TransferResult(i, transfer.getFromCardId(), transfer.getToCardId(), status));
+        }
+
+        if (!balances.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, balances.entrySet(), balances.size(),
+                    (ps, balance) -> {
+                        ps.setBigDecimal(1, balance.getValue());
+                        ps.setLong(2, balance.getKey());
+                    });
+            transactionRepository.saveAll(entries);
+        }
+        return results;
+    }
+
+    /**
+     * The ledger is read newest first by {@code createdAt}, then by {@code id}. {@code after} is the
+     * {@code nextCursor} of the previous page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDto> getCardTransactions(Long id, User user, String after, int size)
+            throws CardNotFoundException, UnauthorizedCardAccessException {
+        Card card = cardRepository.findById(id)
+                .orElseThrow(() -> new CardNotFoundException(id));
+
+        if (!card.getUser().getId().equals(user.getId())) {
+            throw new UnauthorizedCardAccessException("You are not authorized to view this card");
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_TRANSACTIONS_PAGE_SIZE));
+        // One extra row tells whether there is a next page
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        List<CardTransaction> transactions;
+        if (after == null || after.isEmpty()) {
+            transactions = transactionRepository.findByCardIdOrderByCreatedAtDescIdDesc(id, pageable);
+        } else {
+            CursorCodec.Cursor cursor = cursorCodec.decode(after, SORT_BY_CREATED_AT);
+            transactions = transactionRepository.findByCardIdBefore(
+                    id, parseCreatedAt(cursor.value()), cursor.id(), pageable);
+        }
+
+        boolean hasNext = transactions.size() > pageSize;
+        List<TransactionDto> content = transactions.stream()
+                .limit(pageSize)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionDto last = content.get(content.size() - 1);
+            nextCursor = cursorCodec.encode(SORT_BY_CREATED_AT, last.getCreatedAt().toString(), last.getId());
+        }
+        return new CursorPage<>(content, hasNext, nextCursor);
+    }
+
+    private static LocalDateTime parseCreatedAt(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    private static void addLedgerEntries(List<CardTransaction> entries, TransferRequest transfer,
+                                         LocalDateTime createdAt) {
+        entries.add(new CardTransaction(transfer.getFromCardId(), transfer.getToCardId(),
+                TransactionType.DEBIT, transfer.getAmount(), createdAt));
+        entries.add(new CardTransaction(transfer.getToCardId(), transfer.getFromCardId(),
+                TransactionType.CREDIT, transfer.getAmount(), createdAt));
+    }
+
+    private TransferStatus applyTransfer(TransferRequest transfer, Map<Long, Card> cards,
+                                         Map<Long, BigDecimal> balances) {
+        Card fromCard = cards.get(transfer.getFromCardId());
+        Card toCard = cards.get(transfer.getToCardId());
+        // With both cards missing, report the one a single transfer would have looked up first
+        if (fromCard == null && (toCard != null || transfer.getFromCardId() <= transfer.getToCardId())) {
+            return TransferStatus.SOURCE_CARD_NOT_FOUND;
+        }
+        if (toCard == null) {
+            return TransferStatus.DESTINATION_CARD_NOT_FOUND;
+        }
+        if (fromCard.getStatus() != CardStatus.ACTIVE || toCard.getStatus() != CardStatus.ACTIVE) {
+            return TransferStatus.CARD_BLOCKED;
+        }
+
+        BigDecimal fromBalance = balances.getOrDefault(fromCard.getId(), fromCard.getBalance());
+        if (fromBalance.compareTo(transfer.getAmount()) < 0) {
+            return TransferStatus.INSUFFICIENT_FUNDS;
+        }
+
+        balances.put(fromCard.getId(), fromBalance.subtract(transfer.getAmount()));
+        BigDecimal toBalance = balances.getOrDefault(toCard.getId(), toCard.getBalance());
+        balances.put(toCard.getId(), toBalance.add(transfer.getAmount()));
+        return TransferStatus.SUCCESS;
+    }
+
+    private List<CardDto> convertToDtos(List<Card> cards) {
+        List<String> encryptedNumbers = cards.stream()
+                .filter(card -> card.getMaskedNumber() == null)
+                .map(Card::getCardNumber)
+                .collect(Collectors.toList());
+        // Only rows not yet reached by CardMaskBackfill need the cipher
+        Iterator<String> cardNumbers = encryptionUtil.decryptAll(encryptedNumbers).iterator();
+
+        List<CardDto> dtos = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            String maskedNumber = card.getMaskedNumber() != null
+                    ? card.getMaskedNumber()
+                    : cardMasker.maskCardNumber(cardNumbers.next());
+            dtos.add(convertToDto(card, maskedNumber));
+        }
+        return dtos;
+    }
+
+    private List<CardDto> convertViewsToDtos(List<CardView> cards) {
+        List<String> encryptedNumbers = cards.stream()
+                .map(CardView::encryptedNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Iterator<String> cardNumbers = encryptionUtil.decryptAll(encryptedNumbers).iterator();
+
+        List<CardDto> dtos = new ArrayList<>(cards.size());
+        for (CardView card : cards) {
+            String maskedNumber = card.maskedNumber() != null
+                    ? card.maskedNumber()
+                    : cardMasker.maskCardNumber(cardNumbers.next());
+            dtos.add(convertToDto(card, maskedNumber));
+        }
+        return dtos;
+    }
+
+    private CardDto convertToDto(CardView card) {
+        String maskedNumber = card.maskedNumber() != null
+                ? card.maskedNumber()
+                : cardMasker.maskCardNumber(encryptionUtil.decrypt(card.encryptedNumber()));
+        return convertToDto(card, maskedNumber);
+    }
+
     private CardDto convertToDto(Card card) {
+        String maskedNumber = card.getMaskedNumber() != null
+                ? card.getMaskedNumber()
+                : cardMasker.maskCardNumber(encryptionUtil.decrypt(card.getCardNumber()));
+        return convertToDto(card, maskedNumber);
+    }
+
+    private TransactionDto convertToDto(CardTransaction transaction) {
+        TransactionDto dto = new TransactionDto();
+        dto.setId(transaction.getId());
+        dto.setCardId(transaction.getCardId());
+        dto.setCounterpartyCardId(transaction.getCounterpartyCardId());
+        dto.setType(transaction.getType());
+        dto.setAmount(transaction.getAmount());
+        dto.setCreatedAt(transaction.getCreatedAt());
+        return dto;
+    }
+
+    private CardDto convertToDto(Card card, String maskedNumber) {
         CardDto dto = new CardDto();
         dto.setId(card.getId());
-        dto.setMaskedCardNumber(cardMasker.maskCardNumber(encryptionUtil.decrypt(card.getCardNumber())));
+        dto.setMaskedCardNumber(maskedNumber);
         dto.setCardHolder(card.getCardHolder());
         dto.setExpiryDate(card.getExpiryDate());
         dto.setStatus(card.getStatus());
         dto.setBalance(card.getBalance());
         return dto;
     }
+
+    private CardDto convertToDto(CardView card, String maskedNumber) {
+        CardDto dto = new CardDto();
+        dto.setId(card.id());
+        dto.setMaskedCardNumber(maskedNumber);
+        dto.setCardHolder(card.cardHolder());
+        dto.setExpiryDate(card.expiryDate());
+        dto.setStatus(card.status());
+        dto.setBalance(card.balance());
+        return dto;
+    }
 }
\ No newline at end of file
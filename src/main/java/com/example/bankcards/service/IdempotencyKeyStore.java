@@ -0,0 +1,165 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.IdempotencyKeyReusedException;
+import com.example.bankcards.exception.InvalidIdempotencyKeyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Records {@code Idempotency-Key} values of completed requests in {@code idempotency_keys}.
+ * <p>
+ * A key is claimed inside the caller's transaction, so it is only kept if the request itself commits.
+ * Committed keys are also held in a bounded in-memory cache, which answers repeated keys without a query.
+ * A cached key expires when its row does, at {@code created_at} plus the TTL, so every instance stops answering
+ * for it at the same time.
+ */
+@Component
+public class IdempotencyKeyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeyStore.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO idempotency_keys (user_id, idempotency_key, request_fingerprint, created_at) " +
+                    "VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String SELECT_KEY_SQL =
+            "SELECT request_fingerprint, created_at FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ?";
+    private static final String PURGE_SQL =
+            "DELETE FROM idempotency_keys WHERE (user_id, idempotency_key) IN (" +
+                    "SELECT user_id, idempotency_key FROM idempotency_keys WHERE created_at < ? LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final int purgeBatchSize;
+
+    /** Committed keys, keyed by {@code userId:key}. */
+    private final Cache<String, CompletedKey> completedKeys;
+
+    public IdempotencyKeyStore(JdbcTemplate jdbcTemplate,
+                               @Value("${bankcards.transfer.idempotencyTtlHours:24}") long ttlHours,
+                               @Value("${bankcards.transfer.idempotencyCacheMaxSize:100000}") long cacheMaxSize,
+                               @Value("${bankcards.transfer.idempotencyPurgeBatchSize:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.purgeBatchSize = purgeBatchSize;
+        this.completedKeys = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, CompletedKey>() {
+                    @Override
+                    public long expireAfterCreate(String cacheKey, CompletedKey completed, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), completed.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String cacheKey, CompletedKey completed, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(cacheKey, completed, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String cacheKey, CompletedKey completed, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    /**
+     * Claims the key for a request with the given fingerprint. Returns {@code true} if the request should run,
+     * or {@code false} if the same request already completed under this key.
+     * <p>
+     * A concurrent request with the same key waits on the primary key until the first one commits or rolls back.
+     *
+     * @throws IdempotencyKeyReusedException if the key was used for a different request
+     */
+    public boolean claim(Long userId, String key, String fingerprint) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = userId + ":" + key;
+        CompletedKey completed = completedKeys.getIfPresent(cacheKey);
+        if (completed != null) {
+            checkSameRequest(completed.fingerprint(), fingerprint);
+            return false;
+        }
+
+        // A conflicting row may be purged before it is read; the key is then free and the insert is retried
+        while (true) {
+            Instant createdAt = Instant.now();
+            if (jdbcTemplate.update(INSERT_SQL, userId, key, fingerprint, Timestamp.from(createdAt)) == 1) {
+                CompletedKey claimed = new CompletedKey(fingerprint, createdAt.plus(ttl));
+                afterCommit(() -> completedKeys.put(cacheKey, claimed));
+                return true;
+            }
+
+            List<CompletedKey> stored = jdbcTemplate.query(SELECT_KEY_SQL,
+                    (rs, rowNum) -> new CompletedKey(rs.getString("request_fingerprint"),
+                            rs.getTimestamp("created_at").toInstant().plus(ttl)),
+                    userId, key);
+            if (!stored.isEmpty()) {
+                checkSameRequest(stored.get(0).fingerprint(), fingerprint);
+                completedKeys.put(cacheKey, stored.get(0));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Deletes keys older than the TTL in batches, each batch in its own statement, so the purge never holds
+     * locks on many rows at once.
+     */
+    @Scheduled(initialDelayString = "${bankcards.transfer.idempotencyPurgeIntervalMs:3600000}",
+            fixedDelayString = "${bankcards.transfer.idempotencyPurgeIntervalMs:3600000}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(ttl));
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, cutoff, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private static void checkSameRequest(String storedFingerprint, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private record CompletedKey(String fingerprint, Instant expiresAt) {
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
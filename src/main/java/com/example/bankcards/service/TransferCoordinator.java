@@ -0,0 +1,356 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.TransferResult;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardBlockedException;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serializes transfers touching the same card inside the JVM before they reach the database.
+ * <p>
+ * Without it every concurrent transfer on a hot card opens a transaction, takes a pooled connection and then
+ * waits on the card's row lock, so a few hundred transfers on one card exhaust the Hikari pool for every other
+ * request. Here they wait on {@link CardLockManager} instead, and only the transfer holding the card's stripe
+ * takes a connection. The row locks stay in place for other instances and for batch transfers.
+ * <p>
+ * The cards are locked only after {@link CardService#checkTransferCards} has confirmed that the caller owns
+ * both. Otherwise anyone could queue transfers naming another user's card on its stripe, and the owner's own
+ * transfers would time out behind them.
+ * <p>
+ * A transfer that cannot get its cards within {@code bankcards.transfer.cardLockTimeoutMs} is rejected with
+ * {@link TooManyRequestsException}, so a pile-up on one card cannot hold request threads indefinitely.
+ * <p>
+ * With {@code bankcards.transfer.groupCommit.enabled}, transfers without an idempotency key are grouped by
+ * user and destination card for up to {@code maxDelayMs} or {@code maxBatchSize} transfers and committed
+ * together through {@link CardService#transferBatch}: one transaction, one lock on the destination row and one
+ * balance UPDATE per card instead of one of each per transfer. Every caller still gets the outcome of its own
+ * transfer, as the exception the single-transfer path would have thrown.
+ * <p>
+ * A caller waits at most {@code groupCommit.timeoutMs} for its group to start committing. If it has not started
+ * by then, the transfer is taken out of the group, never runs, and the caller gets
+ * {@link TooManyRequestsException}. Once the commit has started the caller waits for its result: grouped
+ * transfers carry no idempotency key, so a retry after a 429 could move the money twice. The commit itself is
+ * bounded by {@code cardLockTimeoutMs} and the retry policy of {@link CardService#transferBatch}.
+ */
+@Service
+public class TransferCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(TransferCoordinator.class);
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    private final CardService cardService;
+    private final CardLockManager cardLockManager;
+    private final boolean enabled;
+    private final long lockTimeoutMs;
+    private final Timer lockWait;
+    private final Counter lockTimeouts;
+
+    private final boolean groupCommit;
+    private final long groupMaxDelayMs;
+    private final int groupMaxSize;
+    private final long groupTimeoutMs;
+    private final ConcurrentHashMap<GroupKey, TransferGroup> openGroups = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor committer;
+    private final DistributionSummary groupSize;
+    private final Counter groupTimeoutsBeforeCommit;
+    private final Counter groupTimeoutsDuringCommit;
+
+    public TransferCoordinator(CardService cardService,
+                               CardLockManager cardLockManager,
+                               @Value("${bankcards.transfer.cardLocks:true}") boolean enabled,
+                               @Value("${bankcards.transfer.cardLockTimeoutMs:5000}") long lockTimeoutMs,
+                               @Value("${bankcards.transfer.groupCommit.enabled:false}") boolean groupCommit,
+                               @Value("${bankcards.transfer.groupCommit.maxDelayMs:5}") long groupMaxDelayMs,
+                               @Value("${bankcards.transfer.groupCommit.maxBatchSize:100}") int groupMaxSize,
+                               @Value("${bankcards.transfer.groupCommit.threads:4}") int groupCommitThreads,
+                               @Value("${bankcards.transfer.groupCommit.timeoutMs:10000}") long groupTimeoutMs,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cardService = cardService;
+        this.cardLockManager = cardLockManager;
+        this.enabled = enabled;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.groupCommit = groupCommit;
+        this.groupMaxDelayMs = groupMaxDelayMs;
+        this.groupMaxSize = groupMaxSize;
+        this.groupTimeoutMs = groupTimeoutMs;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.lockWait = Timer.builder("bankcards.transfer.lock.wait")
+                .description("Time a transfer waits for its cards before starting the transaction")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.lockTimeouts = registry.counter("bankcards.transfer.lock.timeouts");
+        this.groupSize = DistributionSummary.builder("bankcards.transfer.group.size")
+                .description("Transfers committed together by the group commit")
+                .register(registry);
+        this.groupTimeoutsBeforeCommit = registry.counter("bankcards.transfer.group.timeouts", "stage", "waiting");
+        this.groupTimeoutsDuringCommit = registry.counter("bankcards.transfer.group.timeouts", "stage", "committing");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.committer = new ScheduledThreadPoolExecutor(groupCommit ? groupCommitThreads : 1, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-commit-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lets groups already waiting for their delay commit, then stops the commit threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        committer.shutdown();
+    }
+
+    public void transfer(TransferRequest transferRequest, User user) {
+        checkOwnership(transferRequest, user);
+        if (groupCommit) {
+            await(joinGroup(transferRequest, user));
+            return;
+        }
+
+        withCardLocks(cardLocks(transferRequest), () -> {
+            cardService.transferBetweenCards(transferRequest, user);
+            return null;
+        });
+    }
+
+    /**
+     * Never grouped: the key has to be claimed in the transaction of its own transfer.
+     *
+     * @return {@code true} if the transfer had already completed under {@code idempotencyKey}
+     * @see CardService#transferBetweenCards(TransferRequest, User, String)
+     */
+    public boolean transfer(TransferRequest transferRequest, User user, String idempotencyKey) {
+        checkOwnership(transferRequest, user);
+        return withCardLocks(cardLocks(transferRequest),
+                () -> cardService.transferBetweenCards(transferRequest, user, idempotencyKey));
+    }
+
+    private void checkOwnership(TransferRequest transferRequest, User user) {
+        // Without card locks nothing is held before the transaction, which checks ownership itself
+        if (enabled) {
+            cardService.checkTransferCards(transferRequest, user);
+        }
+    }
+
+    private PendingTransfer joinGroup(TransferRequest transferRequest, User user) {
+        GroupKey key = new GroupKey(user.getId(), transferRequest.getToCardId());
+        PendingTransfer pending = new PendingTransfer(transferRequest);
+        TransferGroup[] opened = new TransferGroup[1];
+        TransferGroup[] filled = new TransferGroup[1];
+
+        // Whoever removes a group from the map commits it: the caller that fills it, or the delay task
+        openGroups.compute(key, (k, group) -> {
+            if (group == null) {
+                group = new TransferGroup(k);
+                opened[0] = group;
+            }
+            group.transfers.add(pending);
+            if (group.transfers.size() >= groupMaxSize) {
+                filled[0] = group;
+                return null;
+            }
+            return group;
+        });
+
+        try {
+            if (filled[0] != null) {
+                committer.execute(() -> commit(filled[0]));
+            } else if (opened[0] != null) {
+                TransferGroup group = opened[0];
+                committer.schedule(() -> {
+                    if (openGroups.remove(key, group)) {
+                        commit(group);
+                    }
+                }, groupMaxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down: nobody else will commit the group, so fail it instead of leaving callers waiting
+            TransferGroup group = filled[0] != null ? filled[0] : opened[0];
+            openGroups.remove(key, group);
+            fail(group, e);
+        }
+        return pending;
+    }
+
+    private void commit(TransferGroup group) {
+        // Callers that gave up before this point are left out; the rest can no longer give up unnoticed
+        List<PendingTransfer> committing = new ArrayList<>(group.transfers.size());
+        List<TransferRequest> transfers = new ArrayList<>(group.transfers.size());
+        Set<Long> cardIds = new TreeSet<>();
+        for (PendingTransfer pending : group.transfers) {
+            if (pending.state.compareAndSet(PendingTransfer.WAITING, PendingTransfer.COMMITTING)) {
+                committing.add(pending);
+                transfers.add(pending.request);
+                cardIds.add(pending.request.getFromCardId());
+                cardIds.add(pending.request.getToCardId());
+            }
+        }
+        if (transfers.isEmpty()) {
+            return;
+        }
+        groupSize.record(transfers.size());
+
+        User user = new User();
+        user.setId(group.key.userId());
+        try {
+            List<TransferResult> results = withCardLocks(
+                    (timeout, unit) -> cardLockManager.tryLock(cardIds, timeout, unit),
+                    () -> cardService.transferBatch(transfers, user));
+            for (TransferResult result : results) {
+                CompletableFuture<Void> future = committing.get(result.getIndex()).result;
+                switch (result.getStatus()) {
+                    case SUCCESS -> future.complete(null);
+                    case INSUFFICIENT_FUNDS -> future.completeExceptionally(
+                            new InsufficientFundsException("Insufficient funds on source card"));
+                    case CARD_BLOCKED -> future.completeExceptionally(
+                            new CardBlockedException("One of the cards is blocked or expired"));
+                    case SOURCE_CARD_NOT_FOUND -> future.completeExceptionally(
+                            new CardNotFoundException("Source card not found or not owned by user"));
+                    case DESTINATION_CARD_NOT_FOUND -> future.completeExceptionally(
+                            new CardNotFoundException("Destination card not found or not owned by user"));
+                }
+            }
+        } catch (Throwable e) {
+            committing.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private static void fail(TransferGroup group, Throwable e) {
+        for (PendingTransfer pending : group.transfers) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private CardLockAttempt cardLocks(TransferRequest transferRequest) {
+        return (timeout, unit) -> cardLockManager.tryLock(
+                transferRequest.getFromCardId(), transferRequest.getToCardId(), timeout, unit);
+    }
+
+    private <T> T withCardLocks(CardLockAttempt lockAttempt, Supplier<T> transfer) {
+        if (!enabled) {
+            return transfer.get();
+        }
+
+        long started = System.nanoTime();
+        CardLockManager.CardLocks locks;
+        try {
+            locks = lockAttempt.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for card locks", e);
+        }
+        lockWait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (locks == null) {
+            lockTimeouts.increment();
+            throw new TooManyRequestsException("Too many transfers in progress on this card, retry later",
+                    RETRY_AFTER_SECONDS);
+        }
+        try (locks) {
+            return transfer.get();
+        }
+    }
+
+    private void await(PendingTransfer pending) {
+        try {
+            pending.result.get(groupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.state.compareAndSet(PendingTransfer.WAITING, PendingTransfer.ABANDONED)) {
+                groupTimeoutsBeforeCommit.increment();
+                throw new TooManyRequestsException("Too many transfers in progress on this card, retry later",
+                        RETRY_AFTER_SECONDS);
+            }
+            // Already committing: the transfer may still succeed, so only its result can answer the caller
+            groupTimeoutsDuringCommit.increment();
+            logger.warn("Group commit of a transfer from card {} to card {} is taking longer than {} ms",
+                    pending.request.getFromCardId(), pending.request.getToCardId(), groupTimeoutMs);
+            awaitCommitted(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void awaitCommitted(PendingTransfer pending) {
+        try {
+            pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface CardLockAttempt {
+        CardLockManager.CardLocks tryLock(long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    private record GroupKey(long userId, long toCardId) {
+    }
+
+    private static final class PendingTransfer {
+        private static final int WAITING = 0;
+        private static final int COMMITTING = 1;
+        private static final int ABANDONED = 2;
+
+        private final TransferRequest request;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private PendingTransfer(TransferRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * Only changed inside {@code openGroups.compute}, and only read once removed from the map.
+     */
+    private static final class TransferGroup {
+        private final GroupKey key;
+        private final List<PendingTransfer> transfers = new ArrayList<>();
+
+        private TransferGroup(GroupKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -1,30 +1,120 @@
 package com.example.bankcards.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+
+/**
+ * Masks card numbers as {@code **** **** **** 1234}: non-digits are dropped, all but the last four digits
+ * are replaced with {@code *}, and the result is grouped by four. Values with fewer than four digits are
+ * returned unchanged.
+ */
 @Component
 public class CardMasker {
+    private static final int VISIBLE_DIGITS = 4;
+    private static final int GROUP_SIZE = 4;
+    private static final int MIN_CARD_NUMBER_DIGITS = 13;
+    private static final int MAX_CARD_NUMBER_DIGITS = 19;
+
+    /**
+     * Whether the value is a card number that may be masked into {@code cards.masked_number}: 13 to 19 digits
+     * and nothing else, as accepted by bulk issuance. Anything else would not fit the column or would be stored
+     * as is.
+     */
+    public static boolean isCardNumber(String value) {
+        if (value == null || value.length() < MIN_CARD_NUMBER_DIGITS || value.length() > MAX_CARD_NUMBER_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public String maskCardNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.length() < 4) {
+        if (cardNumber == null || cardNumber.length() < VISIBLE_DIGITS) {
             return cardNumber;
         }
 
-        String digitsOnly = cardNumber.replaceAll("[^0-9]", "");
-
-        if (digitsOnly.length() < 4) {
+        int digits = countDigits(cardNumber);
+        if (digits < VISIBLE_DIGITS) {
             return cardNumber;
         }
 
-        String masked = digitsOnly.replaceAll(".(?=.{4})", "*");
+        return new String(mask(cardNumber, digits));
+    }
+
+    /**
+     * Writes the masked value as a JSON string without creating an intermediate {@link String}.
+     */
+    public void writeMasked(String cardNumber, JsonGenerator generator) throws IOException {
+        if (cardNumber == null) {
+            generator.writeNull();
+            return;
+        }
+
+        int digits = cardNumber.length() < VISIBLE_DIGITS ? 0 : countDigits(cardNumber);
+        if (digits < VISIBLE_DIGITS) {
+            generator.writeString(cardNumber);
+            return;
+        }
+
+        char[] masked = mask(cardNumber, digits);
+        generator.writeString(masked, 0, masked.length);
+    }
+
+    public String lastFour(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+
+        char[] last = new char[VISIBLE_DIGITS];
+        int found = 0;
+        for (int i = cardNumber.length() - 1; i >= 0 && found < VISIBLE_DIGITS; i--) {
+            char c = cardNumber.charAt(i);
+            if (isDigit(c)) {
+                last[VISIBLE_DIGITS - 1 - found++] = c;
+            }
+        }
+
+        return found == VISIBLE_DIGITS ? new String(last) : null;
+    }
+
+    private static char[] mask(String cardNumber, int digits) {
+        char[] masked = new char[digits + (digits - 1) / GROUP_SIZE];
+        int hidden = digits - VISIBLE_DIGITS;
+        int digit = 0;
+        int pos = 0;
 
-        StringBuilder formatted = new StringBuilder();
-        for (int i = 0; i < masked.length(); i++) {
-            if (i > 0 && i % 4 == 0) {
-                formatted.append(" ");
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (!isDigit(c)) {
+                continue;
             }
-            formatted.append(masked.charAt(i));
+            if (digit > 0 && digit % GROUP_SIZE == 0) {
+                masked[pos++] = ' ';
+            }
+            masked[pos++] = digit < hidden ? '*' : c;
+            digit++;
         }
 
-        return formatted.toString();
+        return masked;
+    }
+
+    private static int countDigits(String value) {
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (isDigit(value.charAt(i))) {
+                digits++;
+            }
+        }
+        return digits;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
-}
\ No newline at end of file
+}
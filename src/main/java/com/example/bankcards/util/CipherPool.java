@@ -0,0 +1,49 @@
+package com.example.bankcards.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of pre-initialized {@link Cipher} instances for one mode.
+ * <p>
+ * A pool is used instead of a {@link ThreadLocal}: with virtual threads every request gets a fresh
+ * thread, so thread-local ciphers would never be reused and would pile up. The queue is lock-based
+ * ({@link ArrayBlockingQueue} uses {@code ReentrantLock}), so borrowing never pins a carrier thread.
+ */
+class CipherPool {
+    private final String transformation;
+    private final int mode;
+    private final SecretKeySpec key;
+    private final IvParameterSpec iv;
+    private final BlockingQueue<Cipher> idle;
+
+    CipherPool(String transformation, int mode, SecretKeySpec key, IvParameterSpec iv, int capacity) {
+        this.transformation = transformation;
+        this.mode = mode;
+        this.key = key;
+        this.iv = iv;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    Cipher borrow() throws GeneralSecurityException {
+        Cipher cipher = idle.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        cipher = Cipher.getInstance(transformation);
+        cipher.init(mode, key, iv);
+        return cipher;
+    }
+
+    /**
+     * Returns a cipher after a completed {@code doFinal}, which resets it to its initialized state.
+     * Ciphers that do not fit into the pool are simply dropped.
+     */
+    void release(Cipher cipher) {
+        idle.offer(cipher);
+    }
+}
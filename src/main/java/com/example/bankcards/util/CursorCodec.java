@@ -0,0 +1,48 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque URL-safe tokens. A token carries the sort key it was issued for,
+ * the sort value of the last row and its id, so it cannot be replayed against a different ordering.
+ */
+@Component
+public class CursorCodec {
+    private static final char SEPARATOR = '|';
+
+    public record Cursor(String value, long id) {
+    }
+
+    public String encode(String sortKey, String value, Long id) {
+        String raw = sortKey + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Cursor decode(String token, String sortKey) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (!raw.substring(0, first).equals(sortKey)) {
+            throw new InvalidCursorException("Cursor was issued for a different sort order");
+        }
+
+        try {
+            return new Cursor(raw.substring(first + 1, last), Long.parseLong(raw.substring(last + 1)));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
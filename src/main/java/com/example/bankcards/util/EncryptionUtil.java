@@ -1,5 +1,7 @@
 package com.example.bankcards.util;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -7,8 +9,10 @@ import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
 @Component
 public class EncryptionUtil {
@@ -18,6 +22,21 @@ public class EncryptionUtil {
     @Value("${bankcards.app.encryptionKey}")
     private String encryptionKey;
 
+    @Value("${bankcards.app.cipherPoolSize:64}")
+    private int cipherPoolSize;
+
+    private CipherPool encryptCiphers;
+    private CipherPool decryptCiphers;
+
+    @PostConstruct
+    public void init() {
+        SecretKeySpec secretKey = getValidKey();
+        IvParameterSpec ivSpec = new IvParameterSpec(new byte[16]);
+
+        this.encryptCiphers = new CipherPool(TRANSFORMATION, Cipher.ENCRYPT_MODE, secretKey, ivSpec, cipherPoolSize);
+        this.decryptCiphers = new CipherPool(TRANSFORMATION, Cipher.DECRYPT_MODE, secretKey, ivSpec, cipherPoolSize);
+    }
+
     private SecretKeySpec getValidKey() {
         byte[] keyBytes = encryptionKey.getBytes(StandardCharsets.UTF_8);
 
@@ -25,16 +44,12 @@ public class EncryptionUtil {
         return new SecretKeySpec(validKeyBytes, ALGORITHM);
     }
 
+    @Timed("bankcards.encryption")
     public String encrypt(String data) {
         try {
-            SecretKeySpec secretKey = getValidKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-
-            byte[] iv = new byte[16];
-            IvParameterSpec ivSpec = new IvParameterSpec(iv);
-
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivSpec);
+            Cipher cipher = encryptCiphers.borrow();
             byte[] encryptedBytes = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            encryptCiphers.release(cipher);
 
             return Base64.getEncoder().encodeToString(encryptedBytes);
         } catch (Exception e) {
@@ -42,21 +57,71 @@ public class EncryptionUtil {
         }
     }
 
+    /**
+     * Encrypts a list of values with a single borrowed cipher.
+     * The result keeps the order of the input list.
+     */
+    @Timed("bankcards.encryption")
+    public List<String> encryptAll(List<String> data) {
+        List<String> result = new ArrayList<>(data.size());
+        if (data.isEmpty()) {
+            return result;
+        }
+
+        try {
+            Cipher cipher = encryptCiphers.borrow();
+            for (String value : data) {
+                result.add(Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8))));
+            }
+            encryptCiphers.release(cipher);
+
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption error", e);
+        }
+    }
+
+    @Timed("bankcards.encryption")
     public String decrypt(String encryptedData) {
         try {
-            SecretKeySpec secretKey = getValidKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = decryptCiphers.borrow();
+            String decrypted = decrypt(cipher, encryptedData);
+            decryptCiphers.release(cipher);
 
-            byte[] iv = new byte[16];
-            IvParameterSpec ivSpec = new IvParameterSpec(iv);
+            return decrypted;
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption error", e);
+        }
+    }
 
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, ivSpec);
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+    /**
+     * Decrypts a whole page of values with a single borrowed cipher.
+     * The result keeps the order of the input list.
+     */
+    @Timed("bankcards.encryption")
+    public List<String> decryptAll(List<String> encryptedData) {
+        List<String> result = new ArrayList<>(encryptedData.size());
+        if (encryptedData.isEmpty()) {
+            return result;
+        }
+
+        try {
+            Cipher cipher = decryptCiphers.borrow();
+            for (String value : encryptedData) {
+                result.add(decrypt(cipher, value));
+            }
+            decryptCiphers.release(cipher);
 
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
+            return result;
         } catch (Exception e) {
             throw new RuntimeException("Decryption error", e);
         }
     }
-}
\ No newline at end of file
+
+    private static String decrypt(Cipher cipher, String encryptedData) throws Exception {
+        byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
+        byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+}
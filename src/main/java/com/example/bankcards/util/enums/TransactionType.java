@@ -0,0 +1,6 @@
+package com.example.bankcards.util.enums;
+
+public enum TransactionType {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.util.enums;
+
+public enum TransferStatus {
+    SUCCESS,
+    INSUFFICIENT_FUNDS,
+    CARD_BLOCKED,
+    SOURCE_CARD_NOT_FOUND,
+    DESTINATION_CARD_NOT_FOUND
+}
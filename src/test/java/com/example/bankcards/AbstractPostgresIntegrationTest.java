@@ -0,0 +1,30 @@
+package com.example.bankcards;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base class for tests that need the real schema on PostgreSQL. One container is shared by all
+ * subclasses and the Spring context is cached between them. Skipped when Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractPostgresIntegrationTest {
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("bankcards.app.jwtSecret", () -> "integration_test_secret_key_with_at_least_32_characters");
+        registry.add("bankcards.app.jwtExpirationMs", () -> "3600000");
+        registry.add("bankcards.app.encryptionKey", () -> "integration_test_aes_key_32_bytes");
+    }
+}
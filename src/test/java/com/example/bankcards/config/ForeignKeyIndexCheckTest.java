@@ -0,0 +1,45 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForeignKeyIndexCheckTest extends AbstractPostgresIntegrationTest {
+    @Autowired
+    private ForeignKeyIndexCheck foreignKeyIndexCheck;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS fk_check_child, fk_check_parent");
+    }
+
+    @Test
+    void migratedSchema_HasNoUnindexedForeignKeys() {
+        assertEquals(List.of(), foreignKeyIndexCheck.findUnindexedForeignKeys());
+    }
+
+    @Test
+    void foreignKeyWithoutLeadingIndex_IsReported() {
+        jdbcTemplate.execute("CREATE TABLE fk_check_parent (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE fk_check_child (id BIGINT PRIMARY KEY, parent_id BIGINT, " +
+                "CONSTRAINT fk_check_child_parent FOREIGN KEY (parent_id) REFERENCES fk_check_parent (id))");
+        // parent_id is not the leading column, so this index does not help the foreign key
+        jdbcTemplate.execute("CREATE INDEX idx_fk_check_child_id_parent ON fk_check_child (id, parent_id)");
+
+        assertEquals(List.of("fk_check_child.fk_check_child_parent (parent_id)"),
+                foreignKeyIndexCheck.findUnindexedForeignKeys());
+
+        jdbcTemplate.execute("CREATE INDEX idx_fk_check_child_parent_id ON fk_check_child (parent_id, id)");
+
+        assertEquals(List.of(), foreignKeyIndexCheck.findUnindexedForeignKeys());
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.CardIssueResult;
+import com.example.bankcards.dto.response.CursorPage;
+import com.example.bankcards.dto.response.TransferResult;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.*;
+import com.example.bankcards.service.CardExportLimiter;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransferCoordinator;
 import com.example.bankcards.service.UserDetailsImpl;
+import com.example.bankcards.util.enums.CardIssueStatus;
 import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.TransferStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -21,8 +32,13 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
@@ -37,6 +53,15 @@ class CardControllerTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private CardIssuanceService cardIssuanceService;
+
+    @Mock
+    private TransferCoordinator transferCoordinator;
+
+    @Spy
+    private CardExportLimiter cardExportLimiter = new CardExportLimiter(1);
+
     @InjectMocks
     private CardController cardController;
 
@@ -178,12 +203,107 @@ class CardControllerTest {
         request.setFromCardId(1L);
         request.setToCardId(2L);
         request.setAmount(new BigDecimal("100.00"));
-        doNothing().when(cardService).transferBetweenCards(eq(request), any(User.class));
+        doNothing().when(transferCoordinator).transfer(eq(request), any(User.class));
+
+        ResponseEntity<Void> response = cardController.transferBetweenCards(request, null, authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        verify(transferCoordinator).transfer(eq(request), any(User.class));
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void transferBetweenCards_ReplayedIdempotencyKey() {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("100.00"));
+        when(transferCoordinator.transfer(eq(request), any(User.class), eq("key-1"))).thenReturn(true);
+
+        ResponseEntity<Void> response = cardController.transferBetweenCards(request, "key-1", authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("true", response.getHeaders().getFirst("Idempotent-Replayed"));
+        verify(transferCoordinator, never()).transfer(any(), any(User.class));
+    }
+
+    @Test
+    void transferBatch_ReturnsResultPerItem() {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("100.00"));
+        BatchTransferRequest batchRequest = new BatchTransferRequest();
+        batchRequest.setTransfers(List.of(request));
+        List<TransferResult> results = List.of(new TransferResult(0, 1L, 2L, TransferStatus.SUCCESS));
+        when(cardService.transferBatch(eq(batchRequest.getTransfers()), any(User.class))).thenReturn(results);
+
+        ResponseEntity<List<TransferResult>> response = cardController.transferBatch(batchRequest, authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void issueCardsFromCsv_DelegatesToIssuanceService() {
+        InputStream csv = new ByteArrayInputStream("cardNumber,cardHolder,expiryDate\n".getBytes(StandardCharsets.UTF_8));
+        List<CardIssueResult> results = List.of(
+                new CardIssueResult(0, 10L, "**** **** **** 1111", CardIssueStatus.ISSUED, null));
+        when(cardIssuanceService.issueCardsFromCsv(eq(csv), any(User.class))).thenReturn(results);
+
+        ResponseEntity<List<CardIssueResult>> response = cardController.issueCardsFromCsv(csv, authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(results, response.getBody());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void getUserCardsAfter_Success() {
+        CursorPage<CardDto> page = new CursorPage<>(List.of(testCardDto), true, "next");
+        when(cardService.getUserCardsAfter(any(User.class), eq("expiryDate"), eq("token"), eq(10))).thenReturn(page);
+
+        ResponseEntity<CursorPage<CardDto>> response =
+                cardController.getUserCardsAfter("expiryDate", "token", 10, authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("next", response.getBody().getNextCursor());
+    }
+
+    @Test
+    void exportUserCards_Ndjson_StreamsFromService() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = cardController.exportUserCards("ndjson", authentication);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(cardService).exportUserCards(any(User.class), eq(true), eq(out));
+    }
+
+    @Test
+    void exportUserCards_OverConcurrencyCap_TooManyRequests() throws Exception {
+        ResponseEntity<StreamingResponseBody> running = cardController.exportUserCards("json", authentication);
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> cardController.exportUserCards("json", authentication));
+        assertTrue(e.getRetryAfterSeconds() > 0);
+
+        running.getBody().writeTo(new ByteArrayOutputStream());
+        assertNotNull(cardController.exportUserCards("json", authentication).getBody());
+        verify(cardService).exportUserCards(any(User.class), eq(false), any());
+    }
+
+    @Test
+    void getCardTransactions_Success() {
+        CursorPage<TransactionDto> page = new CursorPage<>(List.of(new TransactionDto()), true, "41");
+        when(cardService.getCardTransactions(eq(1L), any(User.class), eq("c42"), eq(20))).thenReturn(page);
 
-        ResponseEntity<Void> response = cardController.transferBetweenCards(request, authentication);
+        ResponseEntity<CursorPage<TransactionDto>> response =
+                cardController.getCardTransactions(1L, "c42", 20, authentication);
 
         assertEquals(200, response.getStatusCodeValue());
-        verify(cardService).transferBetweenCards(eq(request), any(User.class));
+        assertEquals("41", response.getBody().getNextCursor());
     }
 
     @Test
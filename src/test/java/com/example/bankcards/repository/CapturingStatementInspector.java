@@ -0,0 +1,19 @@
+package com.example.bankcards.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate prepares, so tests can run {@code EXPLAIN} on exactly what a query method sends.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+}
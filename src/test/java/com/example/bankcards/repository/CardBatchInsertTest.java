@@ -0,0 +1,141 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardService;
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements behind creating many cards in one transaction under the {@code prod} profile.
+ * With sequence ids the inserts are flushed as {@code batch_size} batches; an identity column would turn
+ * them back into one statement per card.
+ */
+@ActiveProfiles("prod")
+class CardBatchInsertTest extends AbstractPostgresIntegrationTest {
+    private static final int CARDS = 120;
+    private static final int BATCH_SIZE = 50;
+
+    private static final Queue<Execution> executions = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        executions.clear();
+    }
+
+    @Test
+    void createCards_InsertsInBatches() {
+        User user = createUser();
+        executions.clear();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < CARDS; i++) {
+                cardService.createCard(newCard(user, i), user);
+            }
+        });
+
+        List<Execution> cardInserts = executions.stream()
+                .filter(execution -> execution.query().startsWith("insert into cards"))
+                .toList();
+        assertEquals(List.of(BATCH_SIZE, BATCH_SIZE, CARDS - 2 * BATCH_SIZE),
+                cardInserts.stream().map(Execution::batchSize).toList());
+        assertTrue(cardInserts.stream().allMatch(Execution::batch));
+
+        long sequenceCalls = executions.stream()
+                .filter(execution -> execution.query().contains("cards_seq"))
+                .count();
+        assertTrue(sequenceCalls <= 3, "nextval called " + sequenceCalls + " times");
+    }
+
+    @Test
+    void prodProfile_RewritesBatchedInserts() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        assertEquals("true", hikari.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("batch-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Batch Test");
+        return userRepository.save(user);
+    }
+
+    private static Card newCard(User user, int i) {
+        Card card = new Card();
+        card.setCardNumber(String.format("4%05d%010d", user.getId() % 100_000, i));
+        card.setCardHolder("Batch Test");
+        card.setExpiryDate(LocalDate.now().plusYears(3));
+        card.setBalance(BigDecimal.ZERO);
+        return card;
+    }
+
+    private record Execution(String query, boolean batch, int batchSize) {
+    }
+
+    @TestConfiguration
+    static class StatementCounting {
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .listener(new QueryExecutionListener() {
+                                @Override
+                                public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                                }
+
+                                @Override
+                                public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                                    for (QueryInfo queryInfo : queryInfoList) {
+                                        executions.add(new Execution(queryInfo.getQuery(), execInfo.isBatch(),
+                                                execInfo.isBatch() ? execInfo.getBatchSize() : 1));
+                                    }
+                                }
+                            })
+                            .build();
+                }
+            };
+        }
+    }
+}
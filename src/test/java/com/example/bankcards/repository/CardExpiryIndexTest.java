@@ -0,0 +1,85 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.CardExpirySweeper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link CardExpirySweeper} against the real schema and checks that its chunk query is answered by the
+ * partial index instead of a scan of all cards.
+ */
+class CardExpiryIndexTest extends AbstractPostgresIntegrationTest {
+    private static final int CARDS = 5000;
+
+    @Autowired
+    private CardExpirySweeper sweeper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("expiry-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Expiry Test");
+        user = userRepository.save(user);
+
+        // Every tenth card expired yesterday, a few of them blocked
+        List<Object[]> rows = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            boolean expired = i % 10 == 0;
+            rows.add(new Object[]{user.getUsername() + "-" + i, expired ? -1 : 365, i % 30 == 0 ? "BLOCKED" : "ACTIVE",
+                    user.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cards (card_number, masked_number, card_holder, expiry_date, status, balance, version, user_id) " +
+                "VALUES (?, '****', 'Expiry Test', CURRENT_DATE + ?, ?, 0, 0, ?)", rows);
+        jdbcTemplate.execute("ANALYZE cards");
+    }
+
+    @Test
+    void sweep_ExpiresOnlyPastDueCards() {
+        sweeper.sweep();
+
+        Integer expired = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM cards WHERE user_id = ? AND status = 'EXPIRED'", Integer.class, user.getId());
+        Integer pastDue = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM cards WHERE user_id = ? AND expiry_date < CURRENT_DATE", Integer.class, user.getId());
+        Long versionsBumped = jdbcTemplate.queryForObject(
+                "SELECT sum(version) FROM cards WHERE user_id = ?", Long.class, user.getId());
+        assertEquals(CARDS / 10, expired);
+        assertEquals(pastDue, expired);
+        assertEquals(CARDS / 10, versionsBumped);
+    }
+
+    @Test
+    void chunkQuery_UsesPartialIndex() {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN SELECT id FROM cards WHERE expiry_date < CURRENT_DATE AND status <> 'EXPIRED' LIMIT 1000",
+                    String.class));
+        });
+
+        assertTrue(plan.contains("idx_cards_expiry_date_not_expired"), plan);
+    }
+}
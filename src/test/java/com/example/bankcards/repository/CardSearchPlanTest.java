@@ -0,0 +1,129 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.enums.CardStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@code EXPLAIN} on the SQL generated for the card search, so a change that brings back the
+ * leading-wildcard OR scan fails here instead of in production.
+ */
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.example.bankcards.repository.CapturingStatementInspector")
+class CardSearchPlanTest extends AbstractPostgresIntegrationTest {
+    private static final int CARDS = 20_000;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("search-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Search Test");
+        user = userRepository.save(user);
+
+        List<Object[]> rows = new ArrayList<>(CARDS);
+        String prefix = user.getUsername();
+        for (int i = 0; i < CARDS; i++) {
+            rows.add(new Object[]{prefix + "-" + i, "Holder " + prefix + " " + i, i % 5 == 0 ? "BLOCKED" : "ACTIVE", user.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cards (card_number, masked_number, card_holder, expiry_date, status, balance, version, user_id) " +
+                "VALUES (?, '****', ?, DATE '2030-01-01', ?, 0, 0, ?)", rows);
+        jdbcTemplate.execute("ANALYZE cards");
+    }
+
+    @Test
+    void cardHolderSearch_UsesTrigramIndex() {
+        String search = "Holder " + user.getUsername() + " 1234";
+
+        String plan = explain(CardSpecifications.cardHolderContains(search), "%" + search.toLowerCase() + "%");
+
+        assertTrue(plan.contains("idx_cards_card_holder_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on cards"), plan);
+    }
+
+    @Test
+    void searchAndStatus_AreCombinedWithAnd() {
+        Specification<Card> filter = Specification.where(CardSpecifications.ownedBy(user))
+                .and(CardSpecifications.cardHolderContains(user.getUsername() + " 1999"))
+                .and(CardSpecifications.hasStatus(CardStatus.BLOCKED));
+
+        CapturingStatementInspector.STATEMENTS.clear();
+        Page<Card> page = cardRepository.findAll(filter, PageRequest.of(0, 50));
+
+        // "... 1999" matches 1999 and 19990-19999, of which 19990 and 19995 are blocked
+        assertEquals(2, page.getTotalElements());
+        page.forEach(card -> assertEquals(CardStatus.BLOCKED, card.getStatus()));
+        String sql = CapturingStatementInspector.STATEMENTS.get(0);
+        assertFalse(sql.contains(" or "), sql);
+    }
+
+    @Test
+    void emptyFilters_DropOutOfSql() {
+        Specification<Card> filter = Specification.where(CardSpecifications.ownedBy(user))
+                .and(CardSpecifications.cardHolderContains("  "))
+                .and(CardSpecifications.hasStatus(null));
+
+        CapturingStatementInspector.STATEMENTS.clear();
+        cardRepository.findAll(filter, PageRequest.of(0, 10));
+
+        String sql = CapturingStatementInspector.STATEMENTS.get(0);
+        assertFalse(sql.contains("like"), sql);
+        assertFalse(sql.contains("status="), sql);
+    }
+
+    /**
+     * Captures the row query the repository sends for the filter alone and explains it with the given
+     * parameters. The owner filter is left out on purpose: every test row belongs to one user, so the
+     * {@code (user_id, id)} index would win and hide whether the filter itself can use an index.
+     */
+    private String explain(Specification<Card> filter, Object... filterParameters) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        cardRepository.findAll(filter, PageRequest.of(0, 10));
+        String sql = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> !statement.startsWith("select count"))
+                .findFirst()
+                .orElseThrow();
+
+        List<Object> parameters = new ArrayList<>(List.of(filterParameters));
+        parameters.add(0);
+        parameters.add(10);
+
+        // The test table is small enough for a sequential scan to be cheaper, so only ask whether an index can
+        // answer the query: with sequential scans disabled the plan still falls back to one if none can
+        return transactionTemplate.execute(tx -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray()));
+        });
+    }
+}
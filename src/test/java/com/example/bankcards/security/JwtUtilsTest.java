@@ -0,0 +1,129 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.service.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = createJwtUtils(60_000);
+
+        UserDetailsImpl userDetails = new UserDetailsImpl(1L, "user", "Test User", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    @Test
+    void getVerifiedClaims_ValidToken_ReturnsCachedClaims() {
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        Claims claims = jwtUtils.getVerifiedClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("user", claims.getSubject());
+        assertSame(claims, jwtUtils.getVerifiedClaims(token));
+        assertTrue(jwtUtils.validateJwtToken(token));
+        assertEquals("user", jwtUtils.getUserNameFromJwtToken(token));
+    }
+
+    @Test
+    void getVerifiedClaims_TamperedToken_ReturnsNull() {
+        String token = jwtUtils.generateJwtToken(authentication);
+        jwtUtils.getVerifiedClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtils.getVerifiedClaims(tampered));
+        assertNull(jwtUtils.getVerifiedClaims("not-a-token"));
+        assertNull(jwtUtils.getVerifiedClaims(null));
+    }
+
+    @Test
+    void getVerifiedClaims_ExpiredToken_ReturnsNull() {
+        String token = createJwtUtils(-1_000).generateJwtToken(authentication);
+
+        assertNull(jwtUtils.getVerifiedClaims(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+    }
+
+    @Test
+    void getVerifiedClaims_CountsValidationsByResult() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtUtils utils = createJwtUtils(60_000, registry);
+        String token = utils.generateJwtToken(authentication);
+
+        utils.getVerifiedClaims(token);
+        utils.getVerifiedClaims(token);
+        utils.getVerifiedClaims(createJwtUtils(-1_000).generateJwtToken(authentication));
+
+        assertEquals(1.0, validations(registry, "verified"));
+        assertEquals(1.0, validations(registry, "cached"));
+        assertEquals(1.0, validations(registry, ExpiredJwtException.class.getSimpleName()));
+    }
+
+    @Test
+    void getVerifiedClaims_TokenSignedWithOtherKey_ReturnsNull() {
+        JwtUtils other = createJwtUtils(60_000);
+        ReflectionTestUtils.setField(other, "jwtSecret", "another_secret_key_with_at_least_32_characters!!");
+        other.init();
+
+        assertNull(jwtUtils.getVerifiedClaims(other.generateJwtToken(authentication)));
+    }
+
+    @Test
+    void getPrincipalFromClaims_Disabled_ReturnsNull() {
+        Claims claims = jwtUtils.getVerifiedClaims(jwtUtils.generateJwtToken(authentication));
+
+        assertNull(jwtUtils.getPrincipalFromClaims(claims));
+    }
+
+    @Test
+    void getPrincipalFromClaims_Enabled_BuildsPrincipalFromToken() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtEmbedPrincipal", true);
+
+        Claims claims = jwtUtils.getVerifiedClaims(jwtUtils.generateJwtToken(authentication));
+        UserDetailsImpl principal = jwtUtils.getPrincipalFromClaims(claims);
+
+        assertNotNull(principal);
+        assertEquals(1L, principal.getId());
+        assertEquals("user", principal.getUsername());
+        assertEquals("Test User", principal.getFullName());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+    }
+
+    private static JwtUtils createJwtUtils(int expirationMs) {
+        return createJwtUtils(expirationMs, new SimpleMeterRegistry());
+    }
+
+    private static JwtUtils createJwtUtils(int expirationMs, MeterRegistry registry) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        JwtUtils utils = new JwtUtils(beanFactory.getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(utils, "jwtSecret", "my_very_secret_key_with_at_least_32_characters_long");
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utils, "jwtCacheMaxSize", 100L);
+        utils.init();
+        return utils;
+    }
+
+    private static double validations(SimpleMeterRegistry registry, String result) {
+        return registry.get("bankcards.jwt.validations").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceTest {
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    private LoginService loginService;
+
+    @BeforeEach
+    void setUp() {
+        loginService = new LoginService(authenticationManager, jwtUtils, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginService.shutdown();
+    }
+
+    @Test
+    void login_ValidCredentials_CompletesWithToken() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("user", null);
+        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("jwt");
+
+        assertEquals("jwt", loginService.login("user", "password").join());
+        verify(authenticationManager).authenticate(argThat(token ->
+                "user".equals(token.getPrincipal()) && "password".equals(token.getCredentials())));
+    }
+
+    @Test
+    void login_BadCredentials_CompletesExceptionally() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> loginService.login("user", "wrong").join());
+
+        assertInstanceOf(BadCredentialsException.class, e.getCause());
+        verifyNoInteractions(jwtUtils);
+    }
+
+    @Test
+    void login_QueueFull_Throws() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new UsernamePasswordAuthenticationToken("user", null);
+        });
+
+        CompletableFuture<String> running = loginService.login("user", "password");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = loginService.login("user", "password");
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> loginService.login("user", "password"));
+        assertEquals(LoginService.RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+
+    @Test
+    void shutdown_CompletesQueuedLoginsAndRefusesNewOnes() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new UsernamePasswordAuthenticationToken("user", null);
+        });
+
+        loginService.login("user", "password");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = loginService.login("user", "password");
+
+        loginService.shutdown();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> queued.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(ServiceUnavailableException.class, e.getCause());
+        assertThrows(ServiceUnavailableException.class, () -> loginService.login("user", "password"));
+        release.countDown();
+    }
+}
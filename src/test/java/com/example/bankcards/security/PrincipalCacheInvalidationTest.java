@@ -0,0 +1,73 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.enums.ERole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Granting or revoking a role only changes {@code user_roles}; the cached principal must still follow it.
+ */
+class PrincipalCacheInvalidationTest extends AbstractPostgresIntegrationTest {
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void roleChange_EvictsCachedPrincipal() {
+        Role userRole = role(ERole.ROLE_USER);
+        Role adminRole = role(ERole.ROLE_ADMIN);
+        User user = new User();
+        user.setUsername("roles-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Role Test");
+        user.getRoles().add(userRole);
+        Long userId = userRepository.save(user).getId();
+
+        assertEquals(Set.of("ROLE_USER"), authorities(user.getUsername()));
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().getRoles().add(adminRole));
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authorities(user.getUsername()));
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().getRoles().remove(adminRole));
+        assertEquals(Set.of("ROLE_USER"), authorities(user.getUsername()));
+    }
+
+    private Set<String> authorities(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+    }
+
+    private Role role(ERole name) {
+        return roleRepository.findAll().stream()
+                .filter(role -> role.getName() == name)
+                .findFirst()
+                .orElseThrow();
+    }
+}
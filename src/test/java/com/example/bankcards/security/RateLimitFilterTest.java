@@ -0,0 +1,148 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.service.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    private MeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = filter(
+                rule("login", "POST", "/api/auth/login", null, limit(1, 2)),
+                rule("transfer", "POST", "/api/cards/transfer", limit(1, 1), limit(100, 100)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_LoginOverIpLimit_Returns429WithRetryAfter() throws Exception {
+        assertEquals(200, call("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, call("POST", "/api/auth/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = call("POST", "/api/auth/login", "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"code\":\"TOO_MANY_REQUESTS\""));
+        assertEquals(200, call("POST", "/api/auth/login", "10.0.0.2").getStatus());
+        assertEquals(1.0, meterRegistry.get("bankcards.rate.limit.rejections")
+                .tags("rule", "login", "scope", "ip").counter().count());
+    }
+
+    @Test
+    void doFilter_TransferOverUserLimit_Returns429() throws Exception {
+        authenticate(1L);
+        assertEquals(200, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+        assertEquals(429, call("POST", "/api/cards/transfer", "10.0.0.2").getStatus());
+
+        authenticate(2L);
+        assertEquals(200, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void doFilter_UserOverLimit_DoesNotUseUpIpBudget() throws Exception {
+        filter = filter(rule("transfer", "POST", "/api/cards/transfer", limit(1, 1), limit(1, 2)));
+
+        authenticate(1L);
+        assertEquals(200, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(429, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+        }
+
+        authenticate(2L);
+        assertEquals(200, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+        authenticate(3L);
+        assertEquals(429, call("POST", "/api/cards/transfer", "10.0.0.1").getStatus());
+        assertEquals(5.0, meterRegistry.get("bankcards.rate.limit.rejections")
+                .tags("rule", "transfer", "scope", "user").counter().count());
+    }
+
+    @Test
+    void doFilter_GlobalLimitRejects_GivesBackIpToken() throws Exception {
+        RateLimitProperties.Rule rule = rule("login", "POST", "/api/auth/login", null, limit(1, 2));
+        rule.setGlobal(limit(1, 1));
+        filter = filter(rule);
+
+        assertEquals(200, call("POST", "/api/auth/login", "10.0.0.2").getStatus());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(429, call("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        }
+        assertEquals(0, meterRegistry.find("bankcards.rate.limit.rejections").tags("scope", "ip").counters().size());
+    }
+
+    @Test
+    void doFilter_UnmatchedRequest_NotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call("GET", "/api/auth/login", "10.0.0.1").getStatus());
+            assertEquals(200, call("GET", "/api/cards", "10.0.0.1").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse call(String method, String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(response.getStatus() == 200, chain.getRequest() != null);
+        return response;
+    }
+
+    private RateLimitFilter filter(RateLimitProperties.Rule... rules) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(rules));
+        return new RateLimitFilter(properties, new ObjectMapper(),
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+    }
+
+    private static void authenticate(Long userId) {
+        UserDetailsImpl user = new UserDetailsImpl(userId, "user" + userId, "Test User", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static RateLimitProperties.Rule rule(String name, String method, String path,
+                                                 RateLimitProperties.Limit perUser,
+                                                 RateLimitProperties.Limit perIp) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName(name);
+        rule.setMethod(method);
+        rule.setPath(path);
+        rule.setPerUser(perUser);
+        rule.setPerIp(perIp);
+        return rule;
+    }
+
+    private static RateLimitProperties.Limit limit(double ratePerSecond, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRatePerSecond(ratePerSecond);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(100, Duration.ofMinutes(10), clock::get);
+    }
+
+    @Test
+    void tryAcquire_AllowsBurstThenWaitsForRefill() {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(2, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("key", limit));
+        }
+        assertEquals(SECOND / 2, rateLimiter.tryAcquire("key", limit));
+
+        clock.addAndGet(SECOND / 2);
+        assertEquals(0, rateLimiter.tryAcquire("key", limit));
+        assertTrue(rateLimiter.tryAcquire("key", limit) > 0);
+    }
+
+    @Test
+    void release_ReturnsToken() {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(1, 2);
+        assertEquals(0, rateLimiter.tryAcquire("key", limit));
+        assertEquals(0, rateLimiter.tryAcquire("key", limit));
+
+        rateLimiter.release("key", limit);
+
+        assertEquals(0, rateLimiter.tryAcquire("key", limit));
+        assertTrue(rateLimiter.tryAcquire("key", limit) > 0);
+    }
+
+    @Test
+    void tryAcquire_KeysHaveSeparateBuckets() {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(1, 1);
+
+        assertEquals(0, rateLimiter.tryAcquire("user:1", limit));
+        assertTrue(rateLimiter.tryAcquire("user:1", limit) > 0);
+        assertEquals(0, rateLimiter.tryAcquire("user:2", limit));
+    }
+
+    @Test
+    void tryAcquire_IdleBucketIsFullAgain() {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(10, 5);
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("key", limit);
+        }
+
+        clock.addAndGet(60 * SECOND);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("key", limit));
+        }
+        assertTrue(rateLimiter.tryAcquire("key", limit) > 0);
+    }
+
+    @Test
+    void tryAcquire_BucketCountIsCapped() {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(1, 1);
+        for (int i = 0; i < 1_000; i++) {
+            rateLimiter.tryAcquire("ip:" + i, limit);
+        }
+
+        assertTrue(rateLimiter.size() <= 100);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallersNeverExceedBurst() throws InterruptedException {
+        RateLimiter.Limit limit = RateLimiter.Limit.of(1, 50);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1_000; i++) {
+            executor.execute(() -> {
+                if (rateLimiter.tryAcquire("key", limit) == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, allowed.get());
+    }
+}
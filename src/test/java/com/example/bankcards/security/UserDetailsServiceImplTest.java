@@ -0,0 +1,86 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.enums.ERole;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private MeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(300, 100,
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+        userDetailsService = new UserDetailsServiceImpl(userRepository, principalCache);
+    }
+
+    @Test
+    void loadUserByUsername_SecondCall_ServedFromCache() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        user.setPassword("password");
+        user.setFullName("Test User");
+        user.setRoles(Set.of(new Role(ERole.ROLE_USER)));
+        when(userRepository.findWithRolesByUsername("user")).thenReturn(Optional.of(user));
+
+        UserDetails first = userDetailsService.loadUserByUsername("user");
+        UserDetails second = userDetailsService.loadUserByUsername("user");
+
+        assertSame(first, second);
+        assertEquals("ROLE_USER", first.getAuthorities().iterator().next().getAuthority());
+        verify(userRepository, times(1)).findWithRolesByUsername("user");
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", "principals").gauge().value());
+    }
+
+    @Test
+    void loadUserByUsername_AfterEvict_LoadsAgain() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        user.setPassword("password");
+        user.setFullName("Test User");
+        when(userRepository.findWithRolesByUsername("user")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("user");
+        principalCache.evictAll();
+        userDetailsService.loadUserByUsername("user");
+
+        verify(userRepository, times(2)).findWithRolesByUsername("user");
+    }
+
+    @Test
+    void loadUserByUsername_UnknownUser_NotCached() {
+        when(userRepository.findWithRolesByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        verify(userRepository, times(2)).findWithRolesByUsername("ghost");
+    }
+}
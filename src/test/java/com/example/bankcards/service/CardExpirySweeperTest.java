@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExpirySweeperTest {
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MeterRegistry meterRegistry;
+    private CardExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable(any())).thenReturn(meterRegistry);
+        sweeper = new CardExpirySweeper(jdbcTemplate, BATCH_SIZE, 0, meterRegistryProvider);
+    }
+
+    @Test
+    void sweep_RunsChunksUntilOneIsShort() {
+        when(jdbcTemplate.update(anyString(), any(), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE, BATCH_SIZE, 7);
+
+        sweeper.sweep();
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(), eq(BATCH_SIZE));
+        assertEquals(207, meterRegistry.get("bankcards.card.expiry.sweep.rows").counter().count());
+        assertEquals(3, meterRegistry.get("bankcards.card.expiry.sweep.chunk").timer().count());
+    }
+
+    @Test
+    void sweep_NothingExpired_RunsOneChunk() {
+        when(jdbcTemplate.update(anyString(), any(), eq(BATCH_SIZE))).thenReturn(0);
+
+        sweeper.sweep();
+
+        verify(jdbcTemplate, times(1)).update(anyString(), any(), eq(BATCH_SIZE));
+        assertEquals(0, meterRegistry.get("bankcards.card.expiry.sweep.rows").counter().count());
+    }
+}
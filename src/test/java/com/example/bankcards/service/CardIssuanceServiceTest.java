@@ -0,0 +1,214 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CardIssueRequest;
+import com.example.bankcards.dto.response.CardIssueResult;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidBulkIssueException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.EncryptionUtil;
+import com.example.bankcards.util.enums.CardIssueStatus;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardIssuanceServiceTest {
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private EncryptionUtil encryptionUtil;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private CardIssuanceService issuanceService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        issuanceService = new CardIssuanceService(cardRepository, encryptionUtil, new CardMasker(), jdbcTemplate,
+                transactionTemplate, Validation.buildDefaultValidatorFactory().getValidator(), 2, 10, 2);
+
+        user = new User();
+        user.setId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        issuanceService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void issueCards_ReportsEveryRow() {
+        stubWrites();
+        when(cardRepository.findExistingCardNumbers(anyList()))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream()
+                        .filter("enc-4000000000000002"::equals)
+                        .toList());
+        when(cardRepository.findExistingIds(anyList()))
+                .thenAnswer(invocation -> List.copyOf((Collection<Long>) invocation.getArgument(0)));
+
+        List<CardIssueResult> results = issuanceService.issueCards(List.of(
+                row("4000000000000001"),
+                row("4000000000000002"),
+                row("12ab"),
+                row("4000000000000001"),
+                row("4000000000000003")), user);
+
+        assertEquals(List.of(CardIssueStatus.ISSUED, CardIssueStatus.DUPLICATE, CardIssueStatus.INVALID,
+                CardIssueStatus.DUPLICATE, CardIssueStatus.ISSUED), results.stream().map(CardIssueResult::getStatus).toList());
+        assertEquals(1L, results.get(0).getId());
+        assertEquals(51L, results.get(4).getId());
+        assertEquals("**** **** **** 0001", results.get(0).getMaskedCardNumber());
+        assertEquals("cardNumber: must be 13 to 19 digits", results.get(2).getMessage());
+        verify(encryptionUtil, never()).decrypt(anyString());
+        verify(encryptionUtil, never()).decryptAll(anyList());
+    }
+
+    @Test
+    void issueCards_RowLostToConcurrentInsert_IsDuplicate() {
+        stubWrites();
+        when(cardRepository.findExistingCardNumbers(anyList())).thenReturn(List.of());
+        when(cardRepository.findExistingIds(anyList())).thenReturn(List.of(2L));
+
+        List<CardIssueResult> results = issuanceService.issueCards(
+                List.of(row("4000000000000001"), row("4000000000000002")), user);
+
+        assertEquals(CardIssueStatus.DUPLICATE, results.get(0).getStatus());
+        assertNull(results.get(0).getId());
+        assertEquals(CardIssueStatus.ISSUED, results.get(1).getStatus());
+    }
+
+    @Test
+    void issueCardsFromCsv_ParsesHeaderAndEmptyBalance() {
+        stubWrites();
+        when(cardRepository.findExistingCardNumbers(anyList())).thenReturn(List.of());
+        when(cardRepository.findExistingIds(anyList())).thenReturn(List.of(1L));
+        String csv = "cardNumber,cardHolder,expiryDate,balance\n" +
+                "4000000000000001, Jane Doe ,2030-01-31,\n";
+
+        List<CardIssueResult> results = issuanceService.issueCardsFromCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), user);
+
+        assertEquals(1, results.size());
+        assertEquals(CardIssueStatus.ISSUED, results.get(0).getStatus());
+    }
+
+    @Test
+    void issueCardsFromCsv_UnknownColumn_Throws() {
+        String csv = "cardNumber,pin\n4000000000000001,1234\n";
+
+        assertThrows(InvalidBulkIssueException.class, () -> issuanceService.issueCardsFromCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), user));
+    }
+
+    @Test
+    void issueCards_TooManyRows_Throws() {
+        List<CardIssueRequest> rows = Collections.nCopies(11, row("4000000000000001"));
+
+        assertThrows(InvalidBulkIssueException.class, () -> issuanceService.issueCards(rows, user));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void issueCards_AfterShutdown_Throws() {
+        issuanceService.shutdown();
+
+        IllegalStateException e = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(IllegalStateException.class,
+                        () -> issuanceService.issueCards(List.of(row("4000000000000001")), user)));
+        assertEquals("Card issuance is shutting down", e.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void issueCards_ShutdownWhileChunksQueued_FailsInsteadOfHanging() throws Exception {
+        stubWrites();
+        // Both threads encrypt a chunk that only finishes after shutdown; the other two chunks are still queued
+        CountDownLatch encrypting = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(encryptionUtil.encryptAll(anyList())).thenAnswer(invocation -> {
+            encrypting.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException ignored) {
+                    // shutdownNow() interrupts running chunks; these ones finish anyway
+                }
+            }
+            return ((List<String>) invocation.getArgument(0)).stream().map(number -> "enc-" + number).toList();
+        });
+        List<CardIssueRequest> rows = IntStream.rangeClosed(1, 8)
+                .mapToObj(i -> row(String.valueOf(4_000_000_000_000_000L + i)))
+                .toList();
+
+        CompletableFuture<List<CardIssueResult>> upload = CompletableFuture.supplyAsync(
+                () -> issuanceService.issueCards(rows, user));
+        assertTrue(encrypting.await(5, TimeUnit.SECONDS));
+        issuanceService.shutdown();
+        release.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> upload.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubWrites() {
+        when(encryptionUtil.encryptAll(anyList())).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(0)).stream().map(number -> "enc-" + number).toList());
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // One block of cards_seq per chunk: ids 1..50, then 51..100
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(50L), List.of(100L));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[0][]);
+    }
+
+    private static CardIssueRequest row(String cardNumber) {
+        CardIssueRequest row = new CardIssueRequest();
+        row.setCardNumber(cardNumber);
+        row.setCardHolder("Jane Doe");
+        row.setExpiryDate(LocalDate.now().plusYears(3));
+        row.setBalance(BigDecimal.TEN);
+        return row;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.request.CardIssueRequest;
+import com.example.bankcards.dto.response.CardIssueResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.EncryptionUtil;
+import com.example.bankcards.util.enums.CardIssueStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Issues a few thousand cards against the real schema: the unique index, {@code ON CONFLICT} and the ids
+ * reserved from {@code cards_seq} have to agree with cards created through JPA before and after.
+ */
+class CardIssuanceTest extends AbstractPostgresIntegrationTest {
+    private static final int CARDS = 2500;
+
+    @Autowired
+    private CardIssuanceService issuanceService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Test
+    void issueCards_InsertsNewRowsAndReportsConflicts() {
+        User user = createUser();
+        String prefix = String.format("5%05d", user.getId() % 100_000);
+        CardDto existing = cardService.createCard(newCard(prefix + "0000000007"), user);
+
+        List<CardIssueRequest> rows = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            rows.add(row(prefix + String.format("%010d", i)));
+        }
+        rows.add(row(prefix + "0000000001"));
+
+        List<CardIssueResult> results = issuanceService.issueCards(rows, user);
+
+        assertEquals(CARDS + 1, results.size());
+        assertEquals(CardIssueStatus.DUPLICATE, results.get(7).getStatus());
+        assertEquals(CardIssueStatus.DUPLICATE, results.get(CARDS).getStatus());
+        long issued = results.stream().filter(result -> result.getStatus() == CardIssueStatus.ISSUED).count();
+        assertEquals(CARDS - 1, issued);
+
+        CardIssueResult first = results.get(0);
+        Card stored = cardRepository.findById(first.getId()).orElseThrow();
+        assertEquals(prefix + "0000000000", encryptionUtil.decrypt(stored.getCardNumber()));
+        assertEquals(first.getMaskedCardNumber(), stored.getMaskedNumber());
+        assertEquals("0000", stored.getLast4());
+        assertEquals(user.getId(), stored.getUser().getId());
+
+        CardDto later = cardService.createCard(newCard(prefix + "9999999999"), user);
+        assertTrue(results.stream().noneMatch(result -> later.getId().equals(result.getId())));
+        assertNotEquals(existing.getId(), later.getId());
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("issue-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Issuance Test");
+        return userRepository.save(user);
+    }
+
+    private static Card newCard(String cardNumber) {
+        Card card = new Card();
+        card.setCardNumber(cardNumber);
+        card.setCardHolder("Issuance Test");
+        card.setExpiryDate(LocalDate.now().plusYears(3));
+        card.setBalance(BigDecimal.ZERO);
+        return card;
+    }
+
+    private static CardIssueRequest row(String cardNumber) {
+        CardIssueRequest row = new CardIssueRequest();
+        row.setCardNumber(cardNumber);
+        row.setCardHolder("Issuance Test");
+        row.setExpiryDate(LocalDate.now().plusYears(3));
+        return row;
+    }
+}
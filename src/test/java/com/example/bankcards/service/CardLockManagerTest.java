@@ -0,0 +1,106 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardLockManagerTest {
+
+    @Test
+    void constructor_RoundsStripesUpToPowerOfTwo() {
+        assertEquals(1, new CardLockManager(1).stripeCount());
+        assertEquals(1024, new CardLockManager(1000).stripeCount());
+        assertEquals(1024, new CardLockManager(1024).stripeCount());
+    }
+
+    @Test
+    void tryLock_SameCardHeld_TimesOut() throws Exception {
+        CardLockManager lockManager = new CardLockManager(16);
+
+        try (CardLockManager.CardLocks held = lockManager.tryLock(1, 2, 1, TimeUnit.SECONDS)) {
+            assertNotNull(held);
+            CardLockManager.CardLocks other = CompletableFuture.supplyAsync(() -> tryLock(lockManager, 2, 3))
+                    .get(5, TimeUnit.SECONDS);
+            assertNull(other);
+        }
+
+        assertNotNull(CompletableFuture.supplyAsync(() -> tryLock(lockManager, 2, 3)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tryLock_OtherCards_DoNotWait() throws Exception {
+        CardLockManager lockManager = new CardLockManager(16);
+
+        try (CardLockManager.CardLocks held = lockManager.tryLock(1, 2, 1, TimeUnit.SECONDS)) {
+            assertNotNull(held);
+            assertNotNull(CompletableFuture.supplyAsync(() -> tryLock(lockManager, 3, 4)).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void tryLock_SameStripe_LocksOnce() throws Exception {
+        CardLockManager lockManager = new CardLockManager(4);
+        assertEquals(lockManager.stripe(1), lockManager.stripe(5));
+
+        try (CardLockManager.CardLocks held = lockManager.tryLock(1, 5, 1, TimeUnit.SECONDS)) {
+            assertNotNull(held);
+        }
+        assertNotNull(CompletableFuture.supplyAsync(() -> tryLock(lockManager, 5, 1)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tryLock_OppositeDirections_NeverDeadlock() throws Exception {
+        CardLockManager lockManager = new CardLockManager(16);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            long from = t % 2 == 0 ? 1 : 2;
+            long to = t % 2 == 0 ? 2 : 1;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    try (CardLockManager.CardLocks locks = lockManager.tryLock(from, to, 10, TimeUnit.SECONDS)) {
+                        if (locks == null) {
+                            timeouts.incrementAndGet();
+                            continue;
+                        }
+                        if (inside.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        inside.decrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        assertEquals(0, timeouts.get());
+    }
+
+    private static CardLockManager.CardLocks tryLock(CardLockManager lockManager, long first, long second) {
+        try {
+            CardLockManager.CardLocks locks = lockManager.tryLock(first, second, 50, TimeUnit.MILLISECONDS);
+            if (locks != null) {
+                locks.close();
+            }
+            return locks;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
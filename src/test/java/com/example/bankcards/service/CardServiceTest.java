@@ -1,24 +1,63 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.CursorPage;
+import com.example.bankcards.dto.response.TransferResult;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardBlockedException;
+import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidCardNumberException;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.exception.UnauthorizedCardAccessException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.CardView;
 import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.CursorCodec;
 import com.example.bankcards.util.EncryptionUtil;
 import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.TransactionType;
+import com.example.bankcards.util.enums.TransferStatus;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,6 +75,21 @@ public class CardServiceTest {
     @Mock
     private CardMasker cardMasker;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyKeys;
+
+    @Mock
+    private CardTransactionRepository transactionRepository;
+
+    @Spy
+    private CursorCodec cursorCodec;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -75,8 +129,10 @@ public class CardServiceTest {
         when(encryptionUtil.encrypt(anyString()))
                 .thenReturn("encrypted-card-number");
 
-        when(cardMasker.maskCardNumber(isNull()))
-                .thenReturn("**** **** **** 1234");
+        when(cardMasker.maskCardNumber("1234567812345678"))
+                .thenReturn("**** **** **** 5678");
+        when(cardMasker.lastFour("1234567812345678"))
+                .thenReturn("5678");
 
         when(cardRepository.save(any(Card.class)))
                 .thenReturn(card);
@@ -84,15 +140,29 @@ public class CardServiceTest {
         CardDto result = cardService.createCard(card, user);
 
         assertNotNull(result);
-        assertEquals("**** **** **** 1234", result.getMaskedCardNumber());
+        assertEquals("**** **** **** 5678", result.getMaskedCardNumber());
+        assertEquals("5678", card.getLast4());
         assertEquals("Test User", result.getCardHolder());
         assertEquals(CardStatus.ACTIVE, result.getStatus());
         assertEquals(1000.0, result.getBalance().doubleValue());
 
         verify(encryptionUtil).encrypt("1234567812345678");
+        verify(encryptionUtil, never()).decrypt(anyString());
         verify(cardRepository).save(any(Card.class));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"123", "123456789012", "12345678901234567890", "1234 5678 1234 5678",
+            "123456789012345678901234567"})
+    void createCard_NotACardNumber_RejectedBeforeSaving(String cardNumber) {
+        Card card = new Card();
+        card.setCardNumber(cardNumber);
+
+        assertThrows(InvalidCardNumberException.class, () -> cardService.createCard(card, user));
+        verifyNoInteractions(cardMasker, encryptionUtil);
+        verify(cardRepository, never()).save(any());
+    }
+
     @Test
     void transferBetweenCards_Success() throws Exception {
         Card fromCard = new Card();
@@ -147,4 +217,468 @@ public class CardServiceTest {
             cardService.transferBetweenCards(request, user);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void transferBetweenCards_AtomicUpdates_Success() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("200.00"));
+
+        cardService.transferBetweenCards(request, user);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debitIfSufficient(1L, 1L, new BigDecimal("200.00"));
+        inOrder.verify(cardRepository).creditIfActive(2L, 1L, new BigDecimal("200.00"));
+        verify(cardRepository, never()).findByIdAndUser(any(), any());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transferBetweenCards_WritesDebitAndCreditEntries() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+
+        cardService.transferBetweenCards(transfer(1L, 2L, "200.00"), user);
+
+        ArgumentCaptor<List<CardTransaction>> entries = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(entries.capture());
+        CardTransaction debit = entries.getValue().get(0);
+        CardTransaction credit = entries.getValue().get(1);
+        assertEquals(TransactionType.DEBIT, debit.getType());
+        assertEquals(1L, debit.getCardId());
+        assertEquals(2L, debit.getCounterpartyCardId());
+        assertEquals(TransactionType.CREDIT, credit.getType());
+        assertEquals(2L, credit.getCardId());
+        assertEquals(new BigDecimal("200.00"), credit.getAmount());
+        assertEquals(debit.getCreatedAt(), credit.getCreatedAt());
+    }
+
+    @Test
+    void transferBetweenCards_Rejected_WritesNoEntries() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("2000.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user))
+                .thenReturn(List.of(card, ownedCard(2L, CardStatus.ACTIVE, "100.00")));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> cardService.transferBetweenCards(transfer(1L, 2L, "2000.00"), user));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getCardTransactions_ReturnsNewestFirstWithCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 1, 12, 0, 0, 123456000);
+        String after = cursorCodec.encode("createdAt", createdAt.plusSeconds(1).toString(), 100L);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(transactionRepository.findByCardIdBefore(1L, createdAt.plusSeconds(1), 100L, PageRequest.ofSize(3)))
+                .thenReturn(List.of(ledgerEntry(99L, createdAt), ledgerEntry(12L, createdAt),
+                        ledgerEntry(150L, createdAt.minusSeconds(1))));
+
+        CursorPage<TransactionDto> page = cardService.getCardTransactions(1L, user, after, 2);
+
+        assertEquals(List.of(99L, 12L), page.getContent().stream().map(TransactionDto::getId).toList());
+        assertTrue(page.isHasNext());
+        CursorCodec.Cursor cursor = cursorCodec.decode(page.getNextCursor(), "createdAt");
+        assertEquals(createdAt, LocalDateTime.parse(cursor.value()));
+        assertEquals(12L, cursor.id());
+    }
+
+    @Test
+    void getCardTransactions_LastPage_HasNoCursor() {
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(transactionRepository.findByCardIdOrderByCreatedAtDescIdDesc(1L, PageRequest.ofSize(21)))
+                .thenReturn(List.of(ledgerEntry(5L, LocalDateTime.now())));
+
+        CursorPage<TransactionDto> page = cardService.getCardTransactions(1L, user, null, 20);
+
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getCardTransactions_CursorForCards_Rejected() {
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        String after = cursorCodec.encode("expiryDate", "2027-01-31", 5L);
+
+        assertThrows(InvalidCursorException.class, () -> cardService.getCardTransactions(1L, user, after, 20));
+    }
+
+    @Test
+    void transferBetweenCards_AtomicUpdates_InsufficientFunds() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("2000.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user))
+                .thenReturn(List.of(card, ownedCard(2L, CardStatus.ACTIVE, "100.00")));
+
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("2000.00"));
+
+        assertThrows(InsufficientFundsException.class, () -> cardService.transferBetweenCards(request, user));
+        verify(cardRepository, never()).creditIfActive(any(), any(), any());
+    }
+
+    @Test
+    void transferBetweenCards_AtomicUpdates_BlockedDestinationWithLowerId() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        card.setStatus(CardStatus.BLOCKED);
+        when(cardRepository.creditIfActive(1L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(2L, 1L), user))
+                .thenReturn(List.of(card, ownedCard(2L, CardStatus.ACTIVE, "1000.00")));
+
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(2L);
+        request.setToCardId(1L);
+        request.setAmount(new BigDecimal("200.00"));
+
+        assertThrows(CardBlockedException.class, () -> cardService.transferBetweenCards(request, user));
+        verify(cardRepository, never()).debitIfSufficient(any(), any(), any());
+    }
+
+    @Test
+    void transferBetweenCards_LowFundsAndMissingDestination_ReportsDestinationInBothPaths() {
+        Card source = ownedCard(1L, CardStatus.ACTIVE, "10.00");
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user)).thenReturn(List.of(source));
+        when(cardRepository.findByIdAndUser(1L, user)).thenReturn(Optional.of(source));
+
+        assertRejectedAlike(transfer(1L, 2L, "200.00"), CardNotFoundException.class,
+                "Destination card not found or not owned by user");
+    }
+
+    @Test
+    void transferBetweenCards_BlockedDestinationAndMissingSource_ReportsSourceInBothPaths() {
+        Card destination = ownedCard(1L, CardStatus.BLOCKED, "0.00");
+        when(cardRepository.creditIfActive(1L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(2L, 1L), user)).thenReturn(List.of(destination));
+        when(cardRepository.findByIdAndUser(1L, user)).thenReturn(Optional.of(destination));
+
+        assertRejectedAlike(transfer(2L, 1L, "200.00"), CardNotFoundException.class,
+                "Source card not found or not owned by user");
+    }
+
+    @Test
+    void transferBetweenCards_LowFundsAndBlockedDestination_ReportsBlockedInBothPaths() {
+        Card source = ownedCard(1L, CardStatus.ACTIVE, "10.00");
+        Card destination = ownedCard(2L, CardStatus.BLOCKED, "0.00");
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user)).thenReturn(List.of(source, destination));
+        when(cardRepository.findByIdAndUser(1L, user)).thenReturn(Optional.of(source));
+        when(cardRepository.findByIdAndUser(2L, user)).thenReturn(Optional.of(destination));
+
+        assertRejectedAlike(transfer(1L, 2L, "200.00"), CardBlockedException.class,
+                "One of the cards is blocked or expired");
+    }
+
+    @Test
+    void transferBetweenCards_AtomicUpdates_CreditRejectedAfterDebit_CountsOwnDebitAsAvailable() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        Card source = ownedCard(1L, CardStatus.ACTIVE, "50.00");
+        Card destination = ownedCard(2L, CardStatus.BLOCKED, "0.00");
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user)).thenReturn(List.of(source, destination));
+
+        assertThrows(CardBlockedException.class,
+                () -> cardService.transferBetweenCards(transfer(1L, 2L, "200.00"), user));
+
+        destination.setStatus(CardStatus.ACTIVE);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> cardService.transferBetweenCards(transfer(1L, 2L, "200.00"), user));
+    }
+
+    @Test
+    void transferBetweenCards_AtomicUpdates_NothingWrongOnceLocked_RetriesInsteadOfGuessing() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(0);
+        when(cardRepository.findAllForTransfer(List.of(1L, 2L), user))
+                .thenReturn(List.of(card, ownedCard(2L, CardStatus.ACTIVE, "0.00")));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> cardService.transferBetweenCards(transfer(1L, 2L, "200.00"), user));
+        verify(cardRepository, never()).creditIfActive(any(), any(), any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void transferBetweenCards_IdempotencyKeyClaimed_Transfers() {
+        ReflectionTestUtils.setField(cardService, "atomicUpdates", true);
+        when(idempotencyKeys.claim(1L, "key-1", "1:2:200")).thenReturn(true);
+        when(cardRepository.debitIfSufficient(1L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 1L, new BigDecimal("200.00"))).thenReturn(1);
+
+        boolean replayed = cardService.transferBetweenCards(transfer(1L, 2L, "200.00"), user, "key-1");
+
+        assertFalse(replayed);
+        verify(cardRepository).debitIfSufficient(1L, 1L, new BigDecimal("200.00"));
+    }
+
+    @Test
+    void transferBetweenCards_IdempotencyKeyCompleted_Replays() {
+        when(idempotencyKeys.claim(1L, "key-1", "1:2:200")).thenReturn(false);
+
+        boolean replayed = cardService.transferBetweenCards(transfer(1L, 2L, "200.0"), user, "key-1");
+
+        assertTrue(replayed);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transferBatch_AppliesTransfersInOrderAndReportsEachItem() {
+        Card toCard = new Card();
+        toCard.setId(2L);
+        toCard.setBalance(new BigDecimal("50.00"));
+        toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setUser(user);
+
+        Card blockedCard = new Card();
+        blockedCard.setId(3L);
+        blockedCard.setBalance(new BigDecimal("10.00"));
+        blockedCard.setStatus(CardStatus.BLOCKED);
+        blockedCard.setUser(user);
+
+        when(cardRepository.findAllForTransfer(Set.of(1L, 2L, 3L, 4L), user))
+                .thenReturn(List.of(card, toCard, blockedCard));
+
+        List<TransferResult> results = cardService.transferBatch(List.of(
+                transfer(1L, 2L, "600.00"),
+                transfer(1L, 2L, "600.00"),
+                transfer(2L, 3L, "10.00"),
+                transfer(2L, 4L, "10.00"),
+                transfer(2L, 1L, "650.00")), user);
+
+        assertEquals(List.of(TransferStatus.SUCCESS, TransferStatus.INSUFFICIENT_FUNDS, TransferStatus.CARD_BLOCKED,
+                        TransferStatus.DESTINATION_CARD_NOT_FOUND, TransferStatus.SUCCESS),
+                results.stream().map(TransferResult::getStatus).toList());
+        assertEquals(3, results.get(3).getIndex());
+
+        ArgumentCaptor<Collection<Map.Entry<Long, BigDecimal>>> balances = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), balances.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        List<Map.Entry<Long, BigDecimal>> written = List.copyOf(balances.getValue());
+        assertEquals(1L, written.get(0).getKey());
+        assertEquals(0, new BigDecimal("1050.00").compareTo(written.get(0).getValue()));
+        assertEquals(2L, written.get(1).getKey());
+        assertEquals(0, BigDecimal.ZERO.compareTo(written.get(1).getValue()));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(card.getBalance()));
+        verify(transactionRepository).saveAll(argThat(entries -> ((List<CardTransaction>) entries).size() == 4));
+    }
+
+    @Test
+    void transferBatch_NothingApplied_SkipsUpdate() {
+        when(cardRepository.findAllForTransfer(Set.of(1L, 2L), user)).thenReturn(List.of(card));
+
+        List<TransferResult> results = cardService.transferBatch(List.of(transfer(1L, 2L, "10.00")), user);
+
+        assertEquals(TransferStatus.DESTINATION_CARD_NOT_FOUND, results.get(0).getStatus());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void checkTransferCards_ReportsMissingCardLikeTransfer() {
+        when(cardRepository.findOwnedIds(List.of(1L, 2L), user)).thenReturn(List.of(1L, 2L));
+        when(cardRepository.findOwnedIds(List.of(1L, 3L), user)).thenReturn(List.of(1L));
+        when(cardRepository.findOwnedIds(List.of(4L, 3L), user)).thenReturn(List.of());
+
+        assertDoesNotThrow(() -> cardService.checkTransferCards(transfer(1L, 2L, "10.00"), user));
+        CardNotFoundException destination = assertThrows(CardNotFoundException.class,
+                () -> cardService.checkTransferCards(transfer(1L, 3L, "10.00"), user));
+        assertEquals("Destination card not found or not owned by user", destination.getMessage());
+        CardNotFoundException lowerId = assertThrows(CardNotFoundException.class,
+                () -> cardService.checkTransferCards(transfer(4L, 3L, "10.00"), user));
+        assertEquals("Destination card not found or not owned by user", lowerId.getMessage());
+    }
+
+    @Test
+    void checkTransferCards_ConfirmedOwners_NoQueryOnRepeat() {
+        when(cardRepository.findOwnedIds(List.of(1L, 2L), user)).thenReturn(List.of(1L, 2L));
+        User other = new User();
+        other.setId(2L);
+        when(cardRepository.findOwnedIds(List.of(1L, 2L), other)).thenReturn(List.of());
+
+        cardService.checkTransferCards(transfer(1L, 2L, "10.00"), user);
+        cardService.checkTransferCards(transfer(2L, 1L, "5.00"), user);
+        assertThrows(CardNotFoundException.class,
+                () -> cardService.checkTransferCards(transfer(1L, 2L, "10.00"), other));
+
+        verify(cardRepository, times(1)).findOwnedIds(List.of(1L, 2L), user);
+        verify(cardRepository, never()).findOwnedIds(List.of(2L, 1L), user);
+    }
+
+    @Test
+    void transferBatch_BothCardsMissing_ReportsLowerIdFirst() {
+        when(cardRepository.findAllForTransfer(Set.of(5L, 6L), user)).thenReturn(List.of());
+
+        List<TransferResult> results = cardService.transferBatch(
+                List.of(transfer(5L, 6L, "10.00"), transfer(6L, 5L, "10.00")), user);
+
+        assertEquals(List.of(TransferStatus.SOURCE_CARD_NOT_FOUND, TransferStatus.DESTINATION_CARD_NOT_FOUND),
+                results.stream().map(TransferResult::getStatus).toList());
+    }
+
+    @Test
+    void exportUserCards_Ndjson_WritesOneLinePerCardAndDetachesIt() throws Exception {
+        card.setMaskedNumber("**** **** **** 5678");
+        Card legacyCard = new Card();
+        legacyCard.setId(2L);
+        legacyCard.setCardNumber("encrypted-legacy");
+        legacyCard.setCardHolder("Test User");
+        legacyCard.setStatus(CardStatus.BLOCKED);
+        legacyCard.setBalance(BigDecimal.TEN);
+        when(cardRepository.streamByUser(user)).thenReturn(Stream.of(card, legacyCard));
+        when(encryptionUtil.decrypt("encrypted-legacy")).thenReturn("1111222233334444");
+        when(cardMasker.maskCardNumber("1111222233334444")).thenReturn("**** **** **** 4444");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cardService.exportUserCards(user, true, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"maskedCardNumber\":\"**** **** **** 5678\""), lines[0]);
+        assertTrue(lines[1].contains("\"maskedCardNumber\":\"**** **** **** 4444\""), lines[1]);
+        verify(entityManager).detach(card);
+        verify(entityManager).detach(legacyCard);
+    }
+
+    @Test
+    void exportUserCards_Json_WritesArray() throws Exception {
+        card.setMaskedNumber("**** **** **** 5678");
+        when(cardRepository.streamByUser(user)).thenReturn(Stream.of(card, card));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cardService.exportUserCards(user, false, out);
+
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("[{\"id\":1,"), json);
+        assertTrue(json.endsWith("}]"), json);
+        assertEquals(2, json.split("\"id\":1,").length - 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getUserCardsWithFilter_QueriesSpecification() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cardRepository.findViews(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(view(1L, "**** **** **** 5678", null)), pageable, 1));
+
+        Page<CardDto> page = cardService.getUserCardsWithFilter(user, "test", "blocked", pageable);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("**** **** **** 5678", page.getContent().get(0).getMaskedCardNumber());
+        verify(cardRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void getAllUserCards_DecryptsOnlyRowsWithoutMask() {
+        when(cardRepository.findViewsByUser(user)).thenReturn(List.of(
+                view(1L, "**** **** **** 5678", null),
+                view(2L, null, "encrypted")));
+        when(encryptionUtil.decryptAll(List.of("encrypted"))).thenReturn(List.of("1111222233334444"));
+        when(cardMasker.maskCardNumber("1111222233334444")).thenReturn("**** **** **** 4444");
+
+        List<CardDto> cards = cardService.getAllUserCards(user);
+
+        assertEquals("**** **** **** 5678", cards.get(0).getMaskedCardNumber());
+        assertEquals("**** **** **** 4444", cards.get(1).getMaskedCardNumber());
+        assertEquals(2L, cards.get(1).getId());
+    }
+
+    @Test
+    void getCardById_OtherUsersCard_Throws() {
+        CardView other = new CardView(1L, "**** **** **** 5678", null, "Test User",
+                LocalDate.now().plusYears(1), CardStatus.ACTIVE, BigDecimal.TEN, 2L);
+        when(cardRepository.findViewById(1L)).thenReturn(Optional.of(other));
+
+        assertThrows(UnauthorizedCardAccessException.class, () -> cardService.getCardById(1L, user));
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void getUserCardsAfter_FirstPage_ReturnsCursorOfLastRow() {
+        card.setMaskedNumber("**** **** **** 5678");
+        Pageable firstPage = PageRequest.of(0, 1, Sort.by("expiryDate", "id"));
+        when(cardRepository.findByUser(user, firstPage))
+                .thenReturn(new SliceImpl<>(List.of(card), firstPage, true));
+
+        CursorPage<CardDto> page = cardService.getUserCardsAfter(user, "expiryDate", null, 1);
+
+        assertEquals(1, page.getContent().size());
+        assertTrue(page.isHasNext());
+        CursorCodec.Cursor cursor = cursorCodec.decode(page.getNextCursor(), "expiryDate");
+        assertEquals(card.getExpiryDate().toString(), cursor.value());
+        assertEquals(1L, cursor.id());
+    }
+
+    @Test
+    void getUserCardsAfter_WithCursor_SeeksPastLastRow() {
+        card.setMaskedNumber("**** **** **** 5678");
+        String after = cursorCodec.encode("expiryDate", "2027-01-31", 5L);
+        when(cardRepository.findByUserAfterExpiryDate(user, LocalDate.of(2027, 1, 31), 5L, PageRequest.of(0, 10)))
+                .thenReturn(new SliceImpl<>(List.of(card), PageRequest.of(0, 10), false));
+
+        CursorPage<CardDto> page = cardService.getUserCardsAfter(user, "expiryDate", after, 10);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        verify(cardRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void getUserCardsAfter_CursorForOtherSort_Throws() {
+        String after = cursorCodec.encode("expiryDate", "2027-01-31", 5L);
+
+        assertThrows(InvalidCursorException.class, () -> cardService.getUserCardsAfter(user, "id", after, 10));
+    }
+
+    private CardView view(Long id, String maskedNumber, String encryptedNumber) {
+        return new CardView(id, maskedNumber, encryptedNumber, "Test User", LocalDate.now().plusYears(1),
+                CardStatus.ACTIVE, new BigDecimal("1000.00"), user.getId());
+    }
+
+    private static CardTransaction ledgerEntry(Long id, LocalDateTime createdAt) {
+        CardTransaction transaction = new CardTransaction(1L, 2L, TransactionType.DEBIT,
+                new BigDecimal("10.00"), createdAt);
+        transaction.setId(id);
+        return transaction;
+    }
+
+    /**
+     * Runs the transfer through the conditional-update path and the locking path, expecting the same error.
+     */
+    private void assertRejectedAlike(TransferRequest request, Class<? extends RuntimeException> expected,
+                                     String message) {
+        for (boolean atomicUpdates : new boolean[]{true, false}) {
+            ReflectionTestUtils.setField(cardService, "atomicUpdates", atomicUpdates);
+            RuntimeException e = assertThrows(expected, () -> cardService.transferBetweenCards(request, user),
+                    "atomicUpdates=" + atomicUpdates);
+            assertEquals(message, e.getMessage(), "atomicUpdates=" + atomicUpdates);
+        }
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private Card ownedCard(Long id, CardStatus status, String balance) {
+        Card ownedCard = new Card();
+        ownedCard.setId(id);
+        ownedCard.setStatus(status);
+        ownedCard.setBalance(new BigDecimal(balance));
+        ownedCard.setUser(user);
+        return ownedCard;
+    }
+
+    private static TransferRequest transfer(Long fromCardId, Long toCardId, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
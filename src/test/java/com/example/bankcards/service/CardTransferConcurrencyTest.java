@@ -0,0 +1,158 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractPostgresIntegrationTest;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.enums.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Thousands of transfers in both directions between a few cards of one user. Without ordered locking
+ * Postgres aborts some of them with deadlocks; with it every transfer either succeeds or is rejected
+ * for a business reason, the total balance never changes, and the ledger adds up to every card's balance.
+ * The same holds when {@link TransferCoordinator} commits them in groups.
+ */
+class CardTransferConcurrencyTest extends AbstractPostgresIntegrationTest {
+    private static final int CARDS = 6;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Test
+    void crossingTransfers_ConserveTotalBalance() throws Exception {
+        runCrossingTransfers(cardService::transferBetweenCards);
+    }
+
+    @Test
+    void crossingTransfers_GroupCommit_ConserveTotalBalance() throws Exception {
+        TransferCoordinator coordinator = new TransferCoordinator(cardService, new CardLockManager(1024), true, 60_000,
+                true, 5, 100, 4, 60_000, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        try {
+            runCrossingTransfers(coordinator::transfer);
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    private void runCrossingTransfers(BiConsumer<TransferRequest, User> transfer) throws Exception {
+        User user = createUser();
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createCard(user).getId());
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger insufficientFunds = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < TRANSFERS / THREADS; i++) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+
+                    TransferRequest request = new TransferRequest();
+                    request.setFromCardId(cardIds.get(from));
+                    request.setToCardId(cardIds.get(to));
+                    request.setAmount(BigDecimal.valueOf(1 + random.nextInt(200)));
+                    try {
+                        transfer.accept(request, user);
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        insufficientFunds.incrementAndGet();
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " transfers failed, first: " + failures.peek());
+        assertEquals(TRANSFERS, succeeded.get() + insufficientFunds.get());
+        assertTrue(succeeded.get() > 0);
+
+        BigDecimal total = cardRepository.findAllById(cardIds).stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(total));
+
+        List<CardTransaction> ledger = transactionRepository.findAll().stream()
+                .filter(transaction -> cardIds.contains(transaction.getCardId()))
+                .toList();
+        assertEquals(2L * succeeded.get(), ledger.size());
+        for (Card card : cardRepository.findAllById(cardIds)) {
+            BigDecimal replayed = ledger.stream()
+                    .filter(transaction -> transaction.getCardId().equals(card.getId()))
+                    .map(transaction -> transaction.getType() == TransactionType.CREDIT
+                            ? transaction.getAmount()
+                            : transaction.getAmount().negate())
+                    .reduce(INITIAL_BALANCE, BigDecimal::add);
+            assertEquals(0, replayed.compareTo(card.getBalance()), "ledger does not match card " + card.getId());
+        }
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("transfer-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setFullName("Transfer Test");
+        return userRepository.save(user);
+    }
+
+    private CardDto createCard(User user) {
+        Card card = new Card();
+        card.setCardNumber(String.valueOf(4_000_000_000_000_000L + Math.abs(new Random().nextLong() % 1_000_000_000_000L)));
+        card.setCardHolder(user.getFullName());
+        card.setExpiryDate(LocalDate.now().plusYears(3));
+        card.setBalance(INITIAL_BALANCE);
+        return cardService.createCard(card, user);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.IdempotencyKeyReusedException;
+import com.example.bankcards.exception.InvalidIdempotencyKeyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyStoreTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyKeyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyKeyStore(jdbcTemplate, 24, 100, 2);
+    }
+
+    @Test
+    void claim_NewKey_InsertsAndAnswersRepeatsFromCache() {
+        when(jdbcTemplate.update(startsWith("INSERT"), eq(1L), eq("key-1"), eq("1:2:10"), any())).thenReturn(1);
+
+        assertTrue(store.claim(1L, "key-1", "1:2:10"));
+        assertFalse(store.claim(1L, "key-1", "1:2:10"));
+        assertThrows(IdempotencyKeyReusedException.class, () -> store.claim(1L, "key-1", "1:3:10"));
+
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT"), any(Object[].class));
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    void claim_KeyCommittedElsewhere_ComparesStoredFingerprint() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenReturn(0);
+        storedKey("1:2:10", Instant.now());
+
+        assertFalse(store.claim(1L, "key-1", "1:2:10"));
+        assertThrows(IdempotencyKeyReusedException.class, () -> store.claim(1L, "key-1", "2:1:10"));
+    }
+
+    @Test
+    void claim_KeyCommittedElsewhere_CachedOnlyUntilRowExpires() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenReturn(0);
+        storedKey("1:2:10", Instant.now().minus(Duration.ofHours(24)));
+
+        assertFalse(store.claim(1L, "key-1", "1:2:10"));
+        assertFalse(store.claim(1L, "key-1", "1:2:10"));
+
+        verify(jdbcTemplate, times(2)).query(startsWith("SELECT"), any(RowMapper.class), eq(1L), eq("key-1"));
+    }
+
+    @Test
+    void claim_ConflictingRowPurgedBeforeRead_ClaimsAgain() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenReturn(0, 1);
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class), eq(1L), eq("key-1")))
+                .thenReturn(List.of());
+
+        assertTrue(store.claim(1L, "key-1", "1:2:10"));
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT"), any(Object[].class));
+    }
+
+    @Test
+    void claim_KeysAreScopedPerUser() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenReturn(1);
+
+        assertTrue(store.claim(1L, "key-1", "1:2:10"));
+        assertTrue(store.claim(2L, "key-1", "3:4:10"));
+    }
+
+    @Test
+    void claim_InvalidKey_Throws() {
+        assertThrows(InvalidIdempotencyKeyException.class, () -> store.claim(1L, " ", "1:2:10"));
+        assertThrows(InvalidIdempotencyKeyException.class, () -> store.claim(1L, "k".repeat(256), "1:2:10"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void purgeExpired_DeletesInBatchesUntilShortBatch() {
+        when(jdbcTemplate.update(startsWith("DELETE"), any(), eq(2))).thenReturn(2, 2, 1);
+
+        store.purgeExpired();
+
+        verify(jdbcTemplate, times(3)).update(startsWith("DELETE"), any(), eq(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storedKey(String fingerprint, Instant createdAt) {
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class), eq(1L), eq("key-1")))
+                .thenAnswer(invocation -> {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getString("request_fingerprint")).thenReturn(fingerprint);
+                    when(rs.getTimestamp("created_at")).thenReturn(Timestamp.from(createdAt));
+                    return List.of(invocation.getArgument(1, RowMapper.class).mapRow(rs, 0));
+                });
+    }
+}
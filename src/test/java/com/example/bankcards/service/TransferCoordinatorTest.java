@@ -0,0 +1,274 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.TransferResult;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardBlockedException;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.example.bankcards.util.enums.TransferStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferCoordinatorTest {
+    @Mock
+    private CardService cardService;
+
+    private final CardLockManager cardLockManager = new CardLockManager(16);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final User user = new User();
+    private final List<TransferCoordinator> coordinators = new ArrayList<>();
+    private TransferCoordinator transferCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+        transferCoordinator = coordinator(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinators.forEach(TransferCoordinator::shutdown);
+    }
+
+    @Test
+    void transfer_ReleasesLocksAfterFailure() {
+        doThrow(new InsufficientFundsException("Insufficient funds on source card"))
+                .when(cardService).transferBetweenCards(any(), eq(user));
+
+        assertThrows(InsufficientFundsException.class, () -> transferCoordinator.transfer(request(1L, 2L), user));
+
+        doNothing().when(cardService).transferBetweenCards(any(), eq(user));
+        transferCoordinator.transfer(request(2L, 1L), user);
+        verify(cardService, times(2)).transferBetweenCards(any(), eq(user));
+    }
+
+    @Test
+    void transfer_IdempotencyKey_ReturnsReplayed() {
+        TransferRequest request = request(1L, 2L);
+        when(cardService.transferBetweenCards(request, user, "key-1")).thenReturn(true);
+
+        assertTrue(transferCoordinator.transfer(request, user, "key-1"));
+    }
+
+    @Test
+    void transfer_CardBusyPastTimeout_Throws() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(cardService).transferBetweenCards(any(), eq(user));
+
+        CompletableFuture<Void> running = CompletableFuture.runAsync(
+                () -> transferCoordinator.transfer(request(1L, 2L), user));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> transferCoordinator.transfer(request(3L, 2L), user));
+        assertEquals(TransferCoordinator.RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.counter("bankcards.transfer.lock.timeouts").count());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        verify(cardService, times(1)).transferBetweenCards(any(), eq(user));
+    }
+
+    @Test
+    void transfer_Disabled_DoesNotWaitForBusyCard() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).doNothing().when(cardService).transferBetweenCards(any(), eq(user));
+
+        CompletableFuture<Void> running = CompletableFuture.runAsync(
+                () -> transferCoordinator.transfer(request(1L, 2L), user));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        coordinator(false).transfer(request(1L, 2L), user);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        verify(cardService, times(2)).transferBetweenCards(any(), eq(user));
+    }
+
+    @Test
+    void transfer_OtherUsersCard_RejectedWithoutBlockingOwner() throws Exception {
+        User other = new User();
+        other.setId(2L);
+        CountDownLatch release = new CountDownLatch(1);
+        doThrow(new CardNotFoundException("Source card not found or not owned by user"))
+                .when(cardService).checkTransferCards(any(), eq(other));
+        // What the other user's transfer would do if it got the owner's card: hold it until released
+        lenient().doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(cardService).transferBetweenCards(any(), eq(other));
+
+        try {
+            CompletableFuture<Void> foreign = CompletableFuture.runAsync(
+                    () -> transferCoordinator.transfer(request(1L, 2L), other));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> foreign.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CardNotFoundException.class, e.getCause());
+
+            transferCoordinator.transfer(request(1L, 2L), user);
+        } finally {
+            release.countDown();
+        }
+        verify(cardService).transferBetweenCards(any(), eq(user));
+        verify(cardService, never()).transferBetweenCards(any(), eq(other));
+        assertEquals(0, meterRegistry.counter("bankcards.transfer.lock.timeouts").count());
+    }
+
+    @Test
+    void transfer_GroupCommit_CommitsTogetherWithResultPerCaller() throws Exception {
+        TransferCoordinator grouped = coordinator(true, true, 10_000, 2);
+        // Card 2 has no money, whichever order the two transfers joined the group in
+        when(cardService.transferBatch(any(), any())).thenAnswer(invocation -> {
+            List<TransferRequest> transfers = invocation.getArgument(0);
+            return IntStream.range(0, transfers.size())
+                    .mapToObj(i -> new TransferResult(i, transfers.get(i).getFromCardId(), 3L,
+                            transfers.get(i).getFromCardId() == 2L
+                                    ? TransferStatus.INSUFFICIENT_FUNDS
+                                    : TransferStatus.SUCCESS))
+                    .toList();
+        });
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> grouped.transfer(request(1L, 3L), user));
+        assertThrows(InsufficientFundsException.class, () -> grouped.transfer(request(2L, 3L), user));
+        first.get(5, TimeUnit.SECONDS);
+
+        verify(cardService).transferBatch(argThat(transfers -> transfers.size() == 2), argThat(u -> u.getId() == 1L));
+        verify(cardService, never()).transferBetweenCards(any(), any(User.class));
+        assertEquals(1, meterRegistry.summary("bankcards.transfer.group.size").count());
+    }
+
+    @Test
+    void transfer_GroupCommit_CommitsAloneAfterDelay() {
+        TransferCoordinator grouped = coordinator(true, true, 10, 100);
+        when(cardService.transferBatch(any(), any())).thenReturn(
+                List.of(new TransferResult(0, 1L, 2L, TransferStatus.CARD_BLOCKED)));
+
+        assertThrows(CardBlockedException.class, () -> grouped.transfer(request(1L, 2L), user));
+    }
+
+    @Test
+    void transfer_GroupCommit_ReportsWhichCardIsMissing() {
+        TransferCoordinator grouped = coordinator(true, true, 10, 100);
+        when(cardService.transferBatch(any(), any())).thenReturn(
+                List.of(new TransferResult(0, 1L, 2L, TransferStatus.SOURCE_CARD_NOT_FOUND)));
+
+        CardNotFoundException e = assertThrows(CardNotFoundException.class,
+                () -> grouped.transfer(request(1L, 2L), user));
+        assertEquals("Source card not found or not owned by user", e.getMessage());
+    }
+
+    @Test
+    void transfer_GroupCommit_FailsEveryCallerWhenBatchFails() {
+        TransferCoordinator grouped = coordinator(true, true, 10, 100);
+        when(cardService.transferBatch(any(), any())).thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        assertThrows(CannotAcquireLockException.class, () -> grouped.transfer(request(1L, 2L), user));
+    }
+
+    @Test
+    void transfer_GroupCommit_TimedOutBeforeCommit_IsLeftOut() {
+        TransferCoordinator grouped = coordinator(true, true, 10_000, 2, 50);
+        when(cardService.transferBatch(any(), any())).thenReturn(
+                List.of(new TransferResult(0, 3L, 2L, TransferStatus.SUCCESS)));
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> grouped.transfer(request(1L, 2L), user));
+        assertEquals(TransferCoordinator.RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+        // The second transfer fills the group; the one that gave up must not be committed with it
+        grouped.transfer(request(3L, 2L), user);
+
+        verify(cardService).transferBatch(argThat(transfers -> transfers.size() == 1
+                && transfers.get(0).getFromCardId() == 3L), any());
+        assertEquals(1, meterRegistry.counter("bankcards.transfer.group.timeouts", "stage", "waiting").count());
+    }
+
+    @Test
+    void transfer_GroupCommit_TimedOutDuringCommit_WaitsForResult() throws Exception {
+        TransferCoordinator grouped = coordinator(true, true, 10, 100, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cardService.transferBatch(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return List.of(new TransferResult(0, 1L, 2L, TransferStatus.INSUFFICIENT_FUNDS));
+        });
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> grouped.transfer(request(1L, 2L), user));
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // The timeout passes while the commit runs; the caller must not be told to retry
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("bankcards.transfer.group.timeouts", "stage", "committing").count() == 0
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, meterRegistry.counter("bankcards.transfer.group.timeouts", "stage", "committing").count());
+            assertFalse(waiting.isDone());
+        } finally {
+            release.countDown();
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, e.getCause());
+    }
+
+    private TransferCoordinator coordinator(boolean enabled) {
+        return coordinator(enabled, false, 5, 100, 10_000);
+    }
+
+    private TransferCoordinator coordinator(boolean enabled, boolean groupCommit, long maxDelayMs, int maxBatchSize) {
+        return coordinator(enabled, groupCommit, maxDelayMs, maxBatchSize, 10_000);
+    }
+
+    private TransferCoordinator coordinator(boolean enabled, boolean groupCommit, long maxDelayMs, int maxBatchSize,
+                                            long groupTimeoutMs) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        TransferCoordinator coordinator = new TransferCoordinator(cardService, cardLockManager, enabled, 100,
+                groupCommit, maxDelayMs, maxBatchSize, 2, groupTimeoutMs,
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        coordinators.add(coordinator);
+        return coordinator;
+    }
+
+    private static TransferRequest request(Long fromCardId, Long toCardId) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal("10.00"));
+        return request;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankcards.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardMaskerTest {
+    private static final String ALPHABET = "0123456789 -/x*٣ ";
+    private static final int SAMPLES = 20_000;
+
+    private final CardMasker cardMasker = new CardMasker();
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"1", "123", "1234", "12345", "abcd", "12a", "1-2-3-4", "4111111111111111",
+            "4111 1111 1111 1111", "6011000990139424123", "٣٣٣٣٣", "12 34 56 78 90"})
+    void maskCardNumber_MatchesRegexImplementation(String cardNumber) {
+        assertEquals(legacyMask(cardNumber), cardMasker.maskCardNumber(cardNumber));
+    }
+
+    @Test
+    void maskCardNumber_RandomInput_MatchesRegexImplementation() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            String cardNumber = randomCardNumber(random);
+            assertEquals(legacyMask(cardNumber), cardMasker.maskCardNumber(cardNumber),
+                    () -> "Input: '" + cardNumber + "'");
+        }
+    }
+
+    @Test
+    void writeMasked_RandomInput_WritesSameJsonAsString() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonFactory factory = mapper.getFactory();
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            String cardNumber = randomCardNumber(random);
+
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = factory.createGenerator(out)) {
+                cardMasker.writeMasked(cardNumber, generator);
+            }
+
+            assertEquals(mapper.writeValueAsString(legacyMask(cardNumber)), out.toString(),
+                    () -> "Input: '" + cardNumber + "'");
+        }
+    }
+
+    @Test
+    void writeMasked_Null_WritesJsonNull() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+            cardMasker.writeMasked(null, generator);
+        }
+
+        assertEquals("null", out.toString());
+    }
+
+    @Test
+    void isCardNumber_AcceptsOnly13To19Digits() {
+        assertTrue(CardMasker.isCardNumber("4111111111111"));
+        assertTrue(CardMasker.isCardNumber("6011000990139424123"));
+        assertFalse(CardMasker.isCardNumber("411111111111"));
+        assertFalse(CardMasker.isCardNumber("60110009901394241234"));
+        assertFalse(CardMasker.isCardNumber("4111 1111 1111 1111"));
+        assertFalse(CardMasker.isCardNumber("٣٣٣٣٣٣٣٣٣٣٣٣٣"));
+        assertFalse(CardMasker.isCardNumber(null));
+    }
+
+    @Test
+    void lastFour_IgnoresSeparators() {
+        assertEquals("1111", cardMasker.lastFour("4111 1111 1111 1111"));
+        assertEquals("0004", cardMasker.lastFour("5500-0000-0000-0004"));
+        assertNull(cardMasker.lastFour("12a"));
+        assertNull(cardMasker.lastFour(null));
+    }
+
+    private static String randomCardNumber(Random random) {
+        int length = random.nextInt(25);
+        boolean digitsOnly = random.nextBoolean();
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(digitsOnly
+                    ? (char) ('0' + random.nextInt(10))
+                    : ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The regex-based implementation this masker replaced.
+     */
+    private static String legacyMask(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            return cardNumber;
+        }
+
+        String digitsOnly = cardNumber.replaceAll("[^0-9]", "");
+
+        if (digitsOnly.length() < 4) {
+            return cardNumber;
+        }
+
+        String masked = digitsOnly.replaceAll(".(?=.{4})", "*");
+
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < masked.length(); i++) {
+            if (i > 0 && i % 4 == 0) {
+                formatted.append(" ");
+            }
+            formatted.append(masked.charAt(i));
+        }
+
+        return formatted.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+    private final CursorCodec cursorCodec = new CursorCodec();
+
+    @Test
+    void encodeDecode_RoundTrip() {
+        String token = cursorCodec.encode("expiryDate", "2027-05-31", 42L);
+
+        CursorCodec.Cursor cursor = cursorCodec.decode(token, "expiryDate");
+
+        assertEquals("2027-05-31", cursor.value());
+        assertEquals(42L, cursor.id());
+        assertFalse(token.contains("2027"), "token should be opaque");
+    }
+
+    @Test
+    void encodeDecode_ValueContainingSeparator() {
+        CursorCodec.Cursor cursor = cursorCodec.decode(cursorCodec.encode("cardHolder", "A|B", 7L), "cardHolder");
+
+        assertEquals("A|B", cursor.value());
+        assertEquals(7L, cursor.id());
+    }
+
+    @Test
+    void decode_DifferentSortKey_Throws() {
+        String token = cursorCodec.encode("id", "", 42L);
+
+        assertThrows(InvalidCursorException.class, () -> cursorCodec.decode(token, "expiryDate"));
+    }
+
+    @Test
+    void decode_MalformedToken_Throws() {
+        assertThrows(InvalidCursorException.class, () -> cursorCodec.decode("%%%", "id"));
+        assertThrows(InvalidCursorException.class, () -> cursorCodec.decode(encodeRaw("id|42"), "id"));
+        assertThrows(InvalidCursorException.class, () -> cursorCodec.decode(encodeRaw("id||x"), "id"));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionUtilTest {
+    private EncryptionUtil encryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", "this_is_a_32_byte_key_for_aes_256!!");
+        ReflectionTestUtils.setField(encryptionUtil, "cipherPoolSize", 4);
+        encryptionUtil.init();
+    }
+
+    @Test
+    void encryptDecrypt_RoundTrip() {
+        String encrypted = encryptionUtil.encrypt("4111111111111111");
+
+        assertNotEquals("4111111111111111", encrypted);
+        assertEquals("4111111111111111", encryptionUtil.decrypt(encrypted));
+    }
+
+    @Test
+    void encrypt_IsDeterministic() {
+        assertEquals(encryptionUtil.encrypt("4111111111111111"), encryptionUtil.encrypt("4111111111111111"));
+    }
+
+    @Test
+    void decryptAll_KeepsOrder() {
+        List<String> numbers = List.of("4111111111111111", "5500000000000004", "4000056655665556");
+        List<String> encrypted = numbers.stream().map(encryptionUtil::encrypt).toList();
+
+        assertEquals(numbers, encryptionUtil.decryptAll(encrypted));
+        assertTrue(encryptionUtil.decryptAll(List.of()).isEmpty());
+    }
+
+    @Test
+    void encryptAll_MatchesEncrypt() {
+        List<String> numbers = List.of("4111111111111111", "5500000000000004");
+
+        assertEquals(numbers.stream().map(encryptionUtil::encrypt).toList(), encryptionUtil.encryptAll(numbers));
+        assertTrue(encryptionUtil.encryptAll(List.of()).isEmpty());
+    }
+
+    @Test
+    void decrypt_InvalidData_PoolStaysUsable() {
+        assertThrows(RuntimeException.class, () -> encryptionUtil.decrypt("not-base64!"));
+        assertThrows(RuntimeException.class, () -> encryptionUtil.decrypt("AAAAAAAAAAAAAAAAAAAAAA=="));
+
+        assertEquals("4111111111111111", encryptionUtil.decrypt(encryptionUtil.encrypt("4111111111111111")));
+    }
+
+    @Test
+    void decrypt_ConcurrentCallers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = IntStream.range(0, 1000)
+                    .mapToObj(i -> String.format("4%015d", i))
+                    .map(number -> executor.submit(() ->
+                            number.equals(encryptionUtil.decrypt(encryptionUtil.encrypt(number)))))
+                    .toList();
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}